@@ -0,0 +1,77 @@
+package io.github.lucasimi.zkring.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.github.lucasimi.zkring.Hash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"default", "murmur3", "murmur3x64", "xxhash64"})
+    private String function;
+
+    private Hash hash;
+
+    private String text;
+
+    private byte[] bytes;
+
+    private Long number;
+
+    private UUID uuid;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hash = switch (function) {
+            case "default" -> new Hash.Default();
+            case "murmur3" -> new Hash.Murmur3();
+            case "murmur3x64" -> new Hash.Murmur3x64();
+            case "xxhash64" -> new Hash.XxHash64();
+            default -> throw new IllegalArgumentException("Unknown hash function: " + function);
+        };
+        text = "user:1234567:session";
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        number = 1234567L;
+        uuid = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public int string() {
+        return hash.hash(text);
+    }
+
+    @Benchmark
+    public int byteArray() {
+        return hash.hash(bytes);
+    }
+
+    @Benchmark
+    public int boxedLong() {
+        return hash.hash(number);
+    }
+
+    @Benchmark
+    public int uuid() {
+        return hash.hash(uuid);
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.lucasimi.zkring.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.github.lucasimi.zkring.Hash;
+import io.github.lucasimi.zkring.HashRing;
+import io.github.lucasimi.zkring.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashRingBenchmark {
+
+    private static final int PARTITIONS = 1 << 30;
+
+    private static final int KEYS = 1 << 12;
+
+    @Param({"16", "128", "1024"})
+    private int peers;
+
+    @Param({"16", "128"})
+    private int replication;
+
+    private List<Node> nodes;
+
+    private HashRing ring;
+
+    private String[] keys;
+
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        nodes = new ArrayList<>(peers);
+        for (int i = 0; i < peers; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "10.0.0." + i, 9000 + i));
+        }
+        ring = new HashRing(PARTITIONS, replication, new Hash.Murmur3());
+        ring.addAll(nodes);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key-" + i;
+        }
+    }
+
+    private String nextKey() {
+        return keys[next++ & (KEYS - 1)];
+    }
+
+    @Benchmark
+    public Node getNode() {
+        return ring.getNode(nextKey());
+    }
+
+    @Benchmark
+    public List<Node> getNodes() {
+        return ring.getNodes(nextKey(), 3);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public HashRing addAll() {
+        HashRing rebuilt = new HashRing(PARTITIONS, replication, new Hash.Murmur3());
+        rebuilt.addAll(nodes);
+        return rebuilt;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public HashRing removeAll() {
+        HashRing shrunk = ring.copy();
+        shrunk.removeAll(nodes.subList(0, 1));
+        return shrunk;
+    }
+
+}
@@ -0,0 +1,121 @@
+package io.github.lucasimi.zkring.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import io.github.lucasimi.zkring.Node;
+import io.github.lucasimi.zkring.ZkRing;
+import org.apache.zookeeper.server.NIOServerCnxnFactory;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ZkRingBenchmark {
+
+    @Param({"8", "64"})
+    private int peers;
+
+    private File directory;
+
+    private ZooKeeperServer server;
+
+    private ServerCnxnFactory factory;
+
+    private String connectString;
+
+    private ZkRing observer;
+
+    private List<ZkRing> members;
+
+    private int round = 0;
+
+    private String ringId;
+
+    @Setup(Level.Trial)
+    public void startZooKeeper() throws Exception {
+        directory = Files.createTempDirectory("zkring-benchmark").toFile();
+        server = new ZooKeeperServer(directory, directory, 1000);
+        factory = new NIOServerCnxnFactory();
+        factory.configure(new InetSocketAddress("localhost", 0), 1000);
+        factory.startup(server);
+        connectString = "localhost:" + factory.getLocalPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopZooKeeper() throws IOException {
+        factory.shutdown();
+        server.shutdown();
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void subscribeObserver() {
+        ringId = "ring" + round++;
+        observer = newMember(0);
+        observer.subscribe(ringId);
+        members = new ArrayList<>(peers);
+        for (int i = 1; i <= peers; i++) {
+            members.add(newMember(i));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeMembers() {
+        members.forEach(ZkRing::close);
+        observer.close();
+    }
+
+    private ZkRing newMember(int i) {
+        return ZkRing.newBuilder()
+                .withConnectString(connectString)
+                .withIdentity(new Node(UUID.randomUUID(), "10.0.0." + i, 9000 + i))
+                .withPartitions(1 << 30)
+                .withReplication(64)
+                .build();
+    }
+
+    @Benchmark
+    public int convergence() {
+        List<CompletableFuture<Void>> joins = new ArrayList<>(peers);
+        for (ZkRing member : members) {
+            joins.add(member.subscribeAsync(ringId));
+        }
+        CompletableFuture.allOf(joins.toArray(new CompletableFuture[0])).join();
+        int expected = (peers + 1) * 64;
+        while (observer.size(ringId) != expected) {
+            Thread.onSpinWait();
+        }
+        return observer.size(ringId);
+    }
+
+}
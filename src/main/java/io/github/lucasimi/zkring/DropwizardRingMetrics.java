@@ -0,0 +1,82 @@
+package io.github.lucasimi.zkring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.zookeeper.KeeperException;
+
+public class DropwizardRingMetrics implements RingMetrics {
+
+    private final MetricRegistry registry;
+
+    private final String prefix;
+
+    private final ConcurrentMap<String, Map<Node, Double>> shares = new ConcurrentHashMap<>();
+
+    public DropwizardRingMetrics(MetricRegistry registry) {
+        this(registry, "zkring");
+    }
+
+    public DropwizardRingMetrics(MetricRegistry registry, String prefix) {
+        this.registry = registry;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void lookups(String ringId, LongAdder counter) {
+        String name = MetricRegistry.name(prefix, ringId, "lookups");
+        registry.remove(name);
+        registry.register(name, (Gauge<Long>) counter::sum);
+    }
+
+    @Override
+    public void rebuilt(String ringId, long nanos) {
+        registry.timer(MetricRegistry.name(prefix, ringId, "rebuild")).update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void converged(String ringId, long nanos) {
+        registry.timer(MetricRegistry.name(prefix, ringId, "lag")).update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void ownership(String ringId, Map<Node, Double> current) {
+        Map<Node, Double> previous = shares.put(ringId, current);
+        if (previous == null) {
+            registry.gauge(MetricRegistry.name(prefix, ringId, "ownership", "variance"),
+                    () -> (Gauge<Double>) () -> RingMetrics.variance(shares.getOrDefault(ringId, Map.of())));
+            previous = Map.of();
+        }
+        for (Node node : previous.keySet()) {
+            if (!current.containsKey(node)) {
+                registry.remove(ownershipName(ringId, node));
+            }
+        }
+        for (Node node : current.keySet()) {
+            if (!previous.containsKey(node)) {
+                registry.gauge(ownershipName(ringId, node),
+                        () -> (Gauge<Double>) () -> shares.getOrDefault(ringId, Map.of()).getOrDefault(node, 0.0));
+            }
+        }
+    }
+
+    @Override
+    public void zkCall(String operation) {
+        registry.counter(MetricRegistry.name(prefix, "zookeeper", operation, "calls")).inc();
+    }
+
+    @Override
+    public void zkError(String operation, KeeperException.Code code) {
+        registry.counter(MetricRegistry.name(prefix, "zookeeper", operation, "errors")).inc();
+    }
+
+    private String ownershipName(String ringId, Node node) {
+        return MetricRegistry.name(prefix, ringId, "ownership", node.uuid().toString());
+    }
+
+}
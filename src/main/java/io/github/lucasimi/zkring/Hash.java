@@ -1,6 +1,9 @@
 package io.github.lucasimi.zkring;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
 
 import org.apache.commons.codec.digest.MurmurHash3;
 
@@ -8,12 +11,171 @@ public interface Hash {
 
     <S> int hash(S data);
 
+    @FunctionalInterface
+    public interface KeyEncoder {
+
+        byte[] encode(Object key);
+
+    }
+
     public class Default implements Hash {
 
+        static final KeyEncoder ENCODER = obj -> Utils.serialize(new Wrap<>(obj));
+
         record Wrap<S>(S data) implements Serializable {}
 
         public <S> int hash(S obj) {
-            return MurmurHash3.hash32x86(Utils.serialize(new Wrap<>(obj)));
+            return MurmurHash3.hash32x86(ENCODER.encode(obj));
+        }
+
+    }
+
+    public abstract class Direct implements Hash {
+
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+        private final KeyEncoder encoder;
+
+        protected Direct(KeyEncoder encoder) {
+            this.encoder = encoder;
+        }
+
+        public <S> int hash(S data) {
+            return fold(digest(data));
+        }
+
+        public <S> long digest(S data) {
+            if (data instanceof String str) {
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                return digest(bytes, 0, bytes.length);
+            } else if (data instanceof CharSequence seq) {
+                byte[] bytes = seq.toString().getBytes(StandardCharsets.UTF_8);
+                return digest(bytes, 0, bytes.length);
+            } else if (data instanceof byte[] bytes) {
+                return digest(bytes, 0, bytes.length);
+            } else if (data instanceof ByteBuffer buffer) {
+                return digest(buffer);
+            } else if (data instanceof Long value) {
+                return digest(value, 0L);
+            } else if (data instanceof Integer value) {
+                return digest(value, 0L);
+            } else if (data instanceof UUID uuid) {
+                return digest(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } else if (data instanceof VNode vnode) {
+                UUID uuid = vnode.node().uuid();
+                return digest(uuid.getMostSignificantBits(),
+                        uuid.getLeastSignificantBits() + vnode.rep() * GOLDEN_GAMMA);
+            } else if (data instanceof Node node) {
+                UUID uuid = node.uuid();
+                return digest(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            }
+            byte[] bytes = encoder.encode(data);
+            return digest(bytes, 0, bytes.length);
+        }
+
+        protected int fold(long digest) {
+            return (int) (digest ^ (digest >>> 32));
+        }
+
+        protected abstract long digest(byte[] data, int offset, int length);
+
+        protected abstract long digest(ByteBuffer data);
+
+        protected abstract long digest(long k0, long k1);
+
+    }
+
+    public class Murmur3 extends Direct {
+
+        private final int seed;
+
+        public Murmur3() {
+            this(Default.ENCODER, 0);
+        }
+
+        public Murmur3(KeyEncoder encoder, int seed) {
+            super(encoder);
+            this.seed = seed;
+        }
+
+        @Override
+        protected int fold(long digest) {
+            return (int) digest;
+        }
+
+        @Override
+        protected long digest(byte[] data, int offset, int length) {
+            return HashFunctions.murmur3x86(data, offset, length, seed);
+        }
+
+        @Override
+        protected long digest(ByteBuffer data) {
+            return HashFunctions.murmur3x86(data, seed);
+        }
+
+        @Override
+        protected long digest(long k0, long k1) {
+            return HashFunctions.murmur3x86(k0, k1, seed);
+        }
+
+    }
+
+    public class Murmur3x64 extends Direct {
+
+        private final int seed;
+
+        public Murmur3x64() {
+            this(Default.ENCODER, 0);
+        }
+
+        public Murmur3x64(KeyEncoder encoder, int seed) {
+            super(encoder);
+            this.seed = seed;
+        }
+
+        @Override
+        protected long digest(byte[] data, int offset, int length) {
+            return HashFunctions.murmur3x64(data, offset, length, seed);
+        }
+
+        @Override
+        protected long digest(ByteBuffer data) {
+            return HashFunctions.murmur3x64(data, seed);
+        }
+
+        @Override
+        protected long digest(long k0, long k1) {
+            return HashFunctions.murmur3x64(k0, k1, seed);
+        }
+
+    }
+
+    public class XxHash64 extends Direct {
+
+        private final long seed;
+
+        public XxHash64() {
+            this(Default.ENCODER, 0L);
+        }
+
+        public XxHash64(KeyEncoder encoder, long seed) {
+            super(encoder);
+            this.seed = seed;
+        }
+
+        @Override
+        protected long digest(byte[] data, int offset, int length) {
+            return HashFunctions.xxHash64(data, offset, length, seed);
+        }
+
+        @Override
+        protected long digest(ByteBuffer data) {
+            return HashFunctions.xxHash64(data, seed);
+        }
+
+        @Override
+        protected long digest(long k0, long k1) {
+            return HashFunctions.xxHash64(k0, k1, seed);
         }
 
     }
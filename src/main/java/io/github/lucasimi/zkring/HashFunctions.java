@@ -0,0 +1,245 @@
+package io.github.lucasimi.zkring;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+
+final class HashFunctions {
+
+    private static final int M3_C1 = 0xcc9e2d51;
+
+    private static final int M3_C2 = 0x1b873593;
+
+    private static final long M3_64_C1 = 0x87c37b91114253d5L;
+
+    private static final long M3_64_C2 = 0x4cf5ad432745937fL;
+
+    private static final long XX_P1 = 0x9E3779B185EBCA87L;
+
+    private static final long XX_P2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long XX_P3 = 0x165667B19E3779F9L;
+
+    private static final long XX_P4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long XX_P5 = 0x27D4EB2F165667C5L;
+
+    private HashFunctions() {}
+
+    static int murmur3x86(byte[] data, int offset, int length, int seed) {
+        return MurmurHash3.hash32x86(data, offset, length, seed);
+    }
+
+    static int murmur3x86(ByteBuffer data, int seed) {
+        if (data.hasArray()) {
+            return murmur3x86(data.array(), data.arrayOffset() + data.position(), data.remaining(), seed);
+        }
+        int start = data.position();
+        int length = data.remaining();
+        int blocks = length >>> 2;
+        int h = seed;
+        for (int i = 0; i < blocks; i++) {
+            h = murmur3x86Block(h, getIntLE(data, start + (i << 2)));
+        }
+        int tail = start + (blocks << 2);
+        int remaining = length & 3;
+        if (remaining > 0) {
+            int k = 0;
+            for (int i = remaining - 1; i >= 0; i--) {
+                k ^= (data.get(tail + i) & 0xff) << (i << 3);
+            }
+            h ^= murmur3x86Mix(k);
+        }
+        return murmur3x86Final(h, length);
+    }
+
+    static int murmur3x86(long k0, long k1, int seed) {
+        int h = seed;
+        h = murmur3x86Block(h, (int) k0);
+        h = murmur3x86Block(h, (int) (k0 >>> 32));
+        h = murmur3x86Block(h, (int) k1);
+        h = murmur3x86Block(h, (int) (k1 >>> 32));
+        return murmur3x86Final(h, 16);
+    }
+
+    static long murmur3x64(byte[] data, int offset, int length, int seed) {
+        return MurmurHash3.hash128x64(data, offset, length, seed)[0];
+    }
+
+    static long murmur3x64(ByteBuffer data, int seed) {
+        if (data.hasArray()) {
+            return murmur3x64(data.array(), data.arrayOffset() + data.position(), data.remaining(), seed);
+        }
+        int start = data.position();
+        int length = data.remaining();
+        int blocks = length >>> 4;
+        long h1 = seed & 0xffffffffL;
+        long h2 = seed & 0xffffffffL;
+        for (int i = 0; i < blocks; i++) {
+            int index = start + (i << 4);
+            h1 ^= Long.rotateLeft(getLongLE(data, index) * M3_64_C1, 31) * M3_64_C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(getLongLE(data, index + 8) * M3_64_C2, 33) * M3_64_C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = start + (blocks << 4);
+        int remaining = length & 15;
+        if (remaining > 8) {
+            long k2 = 0;
+            for (int i = remaining - 1; i >= 8; i--) {
+                k2 ^= (data.get(tail + i) & 0xffL) << ((i - 8) << 3);
+            }
+            h2 ^= Long.rotateLeft(k2 * M3_64_C2, 33) * M3_64_C1;
+        }
+        if (remaining > 0) {
+            long k1 = 0;
+            for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+                k1 ^= (data.get(tail + i) & 0xffL) << (i << 3);
+            }
+            h1 ^= Long.rotateLeft(k1 * M3_64_C1, 31) * M3_64_C2;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+
+    static long murmur3x64(long k0, long k1, int seed) {
+        long h1 = seed & 0xffffffffL;
+        long h2 = seed & 0xffffffffL;
+        h1 ^= Long.rotateLeft(k0 * M3_64_C1, 31) * M3_64_C2;
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= Long.rotateLeft(k1 * M3_64_C2, 33) * M3_64_C1;
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+        h1 ^= 16;
+        h2 ^= 16;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+
+    static long xxHash64(byte[] data, int offset, int length, long seed) {
+        return xxHash64(ByteBuffer.wrap(data, offset, length), seed);
+    }
+
+    static long xxHash64(ByteBuffer data, long seed) {
+        int i = data.position();
+        int end = data.limit();
+        int length = end - i;
+        long h;
+        if (length >= 32) {
+            long v1 = seed + XX_P1 + XX_P2;
+            long v2 = seed + XX_P2;
+            long v3 = seed;
+            long v4 = seed - XX_P1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = xxRound(v1, getLongLE(data, i));
+                v2 = xxRound(v2, getLongLE(data, i + 8));
+                v3 = xxRound(v3, getLongLE(data, i + 16));
+                v4 = xxRound(v4, getLongLE(data, i + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                    + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = xxMerge(h, v1);
+            h = xxMerge(h, v2);
+            h = xxMerge(h, v3);
+            h = xxMerge(h, v4);
+        } else {
+            h = seed + XX_P5;
+        }
+        h += length;
+        for (; i + 8 <= end; i += 8) {
+            h = xxLong(h, getLongLE(data, i));
+        }
+        if (i + 4 <= end) {
+            h ^= (getIntLE(data, i) & 0xffffffffL) * XX_P1;
+            h = Long.rotateLeft(h, 23) * XX_P2 + XX_P3;
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h ^= (data.get(i) & 0xffL) * XX_P5;
+            h = Long.rotateLeft(h, 11) * XX_P1;
+        }
+        return xxAvalanche(h);
+    }
+
+    static long xxHash64(long k0, long k1, long seed) {
+        long h = seed + XX_P5 + 16;
+        h = xxLong(h, k0);
+        h = xxLong(h, k1);
+        return xxAvalanche(h);
+    }
+
+    private static int murmur3x86Mix(int k) {
+        return Integer.rotateLeft(k * M3_C1, 15) * M3_C2;
+    }
+
+    private static int murmur3x86Block(int h, int k) {
+        h ^= murmur3x86Mix(k);
+        return Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+    }
+
+    private static int murmur3x86Final(int h, int length) {
+        h ^= length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long xxRound(long acc, long input) {
+        acc += input * XX_P2;
+        return Long.rotateLeft(acc, 31) * XX_P1;
+    }
+
+    private static long xxMerge(long acc, long v) {
+        acc ^= xxRound(0, v);
+        return acc * XX_P1 + XX_P4;
+    }
+
+    private static long xxLong(long h, long k) {
+        h ^= xxRound(0, k);
+        return Long.rotateLeft(h, 27) * XX_P1 + XX_P4;
+    }
+
+    private static long xxAvalanche(long h) {
+        h ^= h >>> 33;
+        h *= XX_P2;
+        h ^= h >>> 29;
+        h *= XX_P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long getLongLE(ByteBuffer data, int index) {
+        long value = data.getLong(index);
+        return data.order() == ByteOrder.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    private static int getIntLE(ByteBuffer data, int index) {
+        int value = data.getInt(index);
+        return data.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+}
@@ -1,19 +1,20 @@
 package io.github.lucasimi.zkring;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
-public class HashRing {
+public class HashRing implements Placement {
+
+    public record Balance(Map<Node, Double> shares, double stddev, double peak) {}
 
     private final int partitions;
 
@@ -21,81 +22,305 @@ public class HashRing {
 
     private final Hash hash;
 
-    private final SortedMap<Integer, VNode> vnodes = new TreeMap<>();
+    private volatile int vnodes;
+
+    // index and table are published together so lookups never see one without the other
+    private record View(RingIndex index, PartitionTable table) {}
+
+    private int tableOwners = 0;
+
+    private volatile View view = new View(RingIndex.EMPTY, null);
 
     public HashRing(int partitions, int replication, Hash hash) {
         this.partitions = partitions;
         this.replication = replication;
         this.hash = hash;
+        this.vnodes = replication;
+    }
+
+    public synchronized HashRing copy() {
+        HashRing copy = new HashRing(partitions, replication, hash);
+        copy.vnodes = this.vnodes;
+        copy.tableOwners = this.tableOwners;
+        copy.view = this.view;
+        return copy;
+    }
+
+    public synchronized void enablePartitionTable(int owners) {
+        if (owners < 1) {
+            throw new IllegalArgumentException("Partition table needs at least one owner: " + owners);
+        }
+        if ((long) partitions * owners > PartitionTable.MAX_CELLS) {
+            throw new IllegalArgumentException("Partition table too large: " + partitions + " x " + owners);
+        }
+        this.tableOwners = owners;
+        publish(this.view.index());
+    }
+
+    public PartitionTable getPartitionTable() {
+        return this.view.table();
     }
 
     public void add(Node peer) {
         this.addAll(Collections.singletonList(peer));
     }
 
-    public void clear() {
-        this.vnodes.clear();
+    public synchronized void clear() {
+        publish(RingIndex.EMPTY);
     }
 
     public void remove(Node peer) {
         this.removeAll(Collections.singletonList(peer));
     }
 
-    public void addAll(Collection<Node> peers) {
-        Map<Integer, VNode> toAdd = getVNodes(peers);
-        this.vnodes.putAll(toAdd);
+    public synchronized void addAll(Collection<Node> peers) {
+        RingIndex toAdd = getVNodes(peers);
+        publish(this.view.index().merge(toAdd));
+    }
+
+    public synchronized void removeAll(Collection<Node> peers) {
+        publish(this.view.index().without(new HashSet<>(peers)));
+    }
+
+    @Override
+    public synchronized void update(Collection<Node> removed, Collection<Node> added) {
+        publish(this.view.index().without(new HashSet<>(removed)).merge(getVNodes(added)));
+    }
+
+    synchronized void apply(Collection<Node> removed, Collection<RingIndex> vnodes) {
+        apply(removed, vnodes, 0.0, 0);
     }
 
-    public void removeAll(Collection<Node> peers) {
-        Map<Integer, VNode> toRemove = getVNodes(peers);
-        toRemove.keySet().forEach(vnodes::remove);
+    // vnodes must be built with the current factor, which the delta reuses when tuning lands on it again
+    synchronized int apply(Collection<Node> removed, Collection<RingIndex> vnodes, double target, long maxVNodes) {
+        RingIndex next = this.view.index().without(new HashSet<>(removed)).merge(RingIndex.union(vnodes));
+        if (target > 0) {
+            next = tune(next, target, maxVNodes);
+        }
+        publish(next);
+        return this.vnodes;
     }
 
     public <S> Node getNode(S obj) {
-        return getNodes(obj, 1).getFirst();
+        View current = this.view;
+        if (current.table() != null) {
+            return current.table().owner(partition(obj));
+        }
+        RingIndex ring = current.index();
+        int i = ring.next(partition(obj));
+        return i < 0 ? null : ring.owner(i);
+    }
+
+    public <S> Node getNode(S obj, LoadTracker loads) {
+        RingIndex ring = this.view.index();
+        int i = ring.next(partition(obj));
+        if (i < 0) {
+            return null;
+        }
+        int size = ring.size();
+        long capacity = loads.capacity(ring.nodes());
+        for (int k = 0; k < size; k++) {
+            Node peer = ring.owner((i + k) % size);
+            if (loads.load(peer) < capacity) {
+                return peer;
+            }
+        }
+        return ring.owner(i);
     }
 
     public <S> List<Node> getNodes(S obj, int num) {
-        List<Node> peers = new ArrayList<>(num);
-        Optional<VNode> vnodeOp = next(obj);
-        vnodeOp.map(VNode::node).ifPresent(peers::add);
-        for (int i = 0; i < num - 1; i++) {
-            vnodeOp = vnodeOp.flatMap(this::next);
-            vnodeOp.map(VNode::node).ifPresent(peers::add);
+        return getNodes(obj, num, false);
+    }
+
+    public <S> List<Node> getNodes(S obj, int num, boolean zoneAware) {
+        View current = this.view;
+        PartitionTable partitionTable = current.table();
+        if (partitionTable != null && !zoneAware && num <= partitionTable.owners()) {
+            return partitionTable.owners(partition(obj), num);
+        }
+        RingIndex ring = current.index();
+        int count = Math.min(num, ring.nodes());
+        List<Node> peers = new ArrayList<>(Math.max(count, 0));
+        int i = ring.next(partition(obj));
+        if (i < 0) {
+            return peers;
+        }
+        int size = ring.size();
+        if (zoneAware) {
+            for (int k = 0; k < size && peers.size() < count; k++) {
+                Node peer = ring.owner((i + k) % size);
+                if (!Utils.containsZone(peers, peer)) {
+                    peers.add(peer);
+                }
+            }
+        }
+        for (int k = 0; k < size && peers.size() < count; k++) {
+            Node peer = ring.owner((i + k) % size);
+            if (!peers.contains(peer)) {
+                peers.add(peer);
+            }
         }
         return peers;
     }
 
+    public <S> void route(List<S> keys, Map<Node, List<S>> buckets, int[] hashes, Node[] owners, long[] scratch) {
+        int length = keys.size();
+        for (int i = 0; i < length; i++) {
+            hashes[i] = hash.hash(keys.get(i));
+        }
+        route(hashes, length, owners, scratch);
+        for (int i = 0; i < length; i++) {
+            if (owners[i] != null) {
+                buckets.computeIfAbsent(owners[i], peer -> new ArrayList<>()).add(keys.get(i));
+            }
+        }
+    }
+
+    public void route(int[] hashes, int length, Node[] owners, long[] scratch) {
+        RingIndex ring = this.view.index();
+        int size = ring.size();
+        if (size == 0) {
+            Arrays.fill(owners, 0, length, null);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = ((long) Math.floorMod(hashes[i], partitions) << 32) | i;
+        }
+        Arrays.sort(scratch, 0, length);
+        int j = 0;
+        for (int k = 0; k < length; k++) {
+            int position = (int) (scratch[k] >> 32);
+            while (j < size && ring.position(j) <= position) {
+                j++;
+            }
+            owners[(int) scratch[k]] = ring.owner(j == size ? 0 : j);
+        }
+    }
+
+    public Map<Node, Double> ownership() {
+        return ownership(this.view.index());
+    }
+
+    public Balance balance() {
+        return balance(this.view.index());
+    }
+
+    public synchronized int tune(double target, long maxVNodes) {
+        publish(tune(this.view.index(), target, maxVNodes));
+        return this.vnodes;
+    }
+
+    // always searches up from replication so the factor depends only on the peers, never on their history
+    private RingIndex tune(RingIndex current, double target, long maxVNodes) {
+        Set<Node> peers = current.peers();
+        long weights = 0;
+        for (Node peer : peers) {
+            weights += peer.weight();
+        }
+        int factor = this.replication;
+        RingIndex tuned = factor == this.vnodes ? current : getVNodes(peers, factor);
+        while (balance(tuned).stddev() > target && weights * factor * 2 <= maxVNodes) {
+            factor *= 2;
+            tuned = factor == this.vnodes ? current : getVNodes(peers, factor);
+        }
+        this.vnodes = factor;
+        return tuned;
+    }
+
+    public int replication() {
+        return this.vnodes;
+    }
+
+    private Map<Node, Double> ownership(RingIndex ring) {
+        int size = ring.size();
+        Map<Node, Double> shares = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            long start = i == 0 ? (long) ring.position(size - 1) - partitions : ring.position(i - 1);
+            shares.merge(ring.owner(i), (double) (ring.position(i) - start) / partitions, Double::sum);
+        }
+        return shares;
+    }
+
+    private Balance balance(RingIndex ring) {
+        Map<Node, Double> shares = ownership(ring);
+        if (shares.isEmpty()) {
+            return new Balance(shares, 0.0, 0.0);
+        }
+        long weights = 0;
+        for (Node peer : shares.keySet()) {
+            weights += peer.weight();
+        }
+        double[] ratios = new double[shares.size()];
+        int i = 0;
+        double mean = 0.0;
+        double peak = 0.0;
+        for (Map.Entry<Node, Double> share : shares.entrySet()) {
+            ratios[i] = share.getValue() * weights / share.getKey().weight();
+            mean += ratios[i] / ratios.length;
+            peak = Math.max(peak, ratios[i]);
+            i++;
+        }
+        double variance = 0.0;
+        for (double ratio : ratios) {
+            variance += (ratio - mean) * (ratio - mean) / ratios.length;
+        }
+        return new Balance(shares, Math.sqrt(variance), peak);
+    }
+
     public int size() {
-        return this.vnodes.size();
+        return this.view.index().entries();
     }
 
-    private <S> int hash(S obj) {
-        return hash.hash(obj) % partitions;
+    public int partitions() {
+        return this.partitions;
     }
 
-    private Map<Integer, VNode> getVNodes(Collection<Node> peers) {
-        return peers.stream()
-                .flatMap(p -> IntStream.range(0, replication)
-                        .mapToObj(i -> new VNode(p, i)))
-                .collect(Collectors.toMap(
-                        this::hash,
-                        Function.identity(),
-                        (x, y) -> hash.hash(x) > hash.hash(y) ? x : y));
+    public <S> int partition(S obj) {
+        return Math.floorMod(hash.hash(obj), partitions);
     }
 
-    private <S> Optional<VNode> next(S obj) {
-        int objRingId = hash(obj);
-        Map.Entry<Integer, VNode> firstEntry = nextEntryOrFirst(vnodes, objRingId + 1);
-        return Optional.ofNullable(firstEntry)
-                .map(Map.Entry::getValue);
+    RingIndex index() {
+        return this.view.index();
     }
 
-    private static <K, V> Map.Entry<K, V> nextEntryOrFirst(SortedMap<K, V> map, K from) {
-        SortedMap<K, V> tailMap = map.tailMap(from);
-        SortedMap<K, V> subMap = tailMap.isEmpty() ? map : tailMap;
-        Iterator<Map.Entry<K, V>> iterator = subMap.entrySet().iterator();
-        return iterator.hasNext() ? iterator.next() : null;
+    private void publish(RingIndex next) {
+        this.view = new View(next, this.tableOwners > 0 ? PartitionTable.of(next, partitions, tableOwners) : null);
+    }
+
+    RingIndex getVNodes(Node peer) {
+        return getVNodes(Collections.singletonList(peer));
+    }
+
+    private RingIndex getVNodes(Collection<Node> peers) {
+        return getVNodes(peers, this.vnodes);
+    }
+
+    private RingIndex getVNodes(Collection<Node> peers, int factor) {
+        Node[] peerArray = peers.toArray(new Node[0]);
+        int[] offsets = new int[peerArray.length + 1];
+        for (int p = 0; p < peerArray.length; p++) {
+            offsets[p + 1] = Math.addExact(offsets[p], Math.multiplyExact(factor, peerArray[p].weight()));
+        }
+        int size = offsets[peerArray.length];
+        int[] positions = new int[size];
+        int[] hashes = new int[size];
+        Node[] owners = new Node[size];
+        IntConsumer vnodes = p -> {
+            Node peer = peerArray[p];
+            Node plain = peer.plain();
+            for (int i = offsets[p], rep = 0; i < offsets[p + 1]; i++, rep++) {
+                int vnodeHash = hash.hash(new VNode(plain, rep));
+                positions[i] = Math.floorMod(vnodeHash, partitions);
+                hashes[i] = vnodeHash;
+                owners[i] = peer;
+            }
+        };
+        if (size >= RingIndex.PARALLEL_THRESHOLD) {
+            IntStream.range(0, peerArray.length).parallel().forEach(vnodes);
+        } else {
+            IntStream.range(0, peerArray.length).forEach(vnodes);
+        }
+        return RingIndex.of(positions, hashes, owners);
     }
 
-}
\ No newline at end of file
+}
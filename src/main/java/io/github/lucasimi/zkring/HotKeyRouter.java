@@ -0,0 +1,215 @@
+package io.github.lucasimi.zkring;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class HotKeyRouter {
+
+    private static final int DEPTH = 4;
+
+    // one lookup in SAMPLE updates the sketch, the rest only read the cache
+    private static final int SAMPLE = 16;
+
+    private record Entry(Placement snapshot, List<Node> nodes) {}
+
+    private final Supplier<Placement> placement;
+
+    private final int replicas;
+
+    private final int capacity;
+
+    private final boolean spread;
+
+    private final int width;
+
+    private final long window;
+
+    private final double hotCount;
+
+    // count-min sketch, DEPTH rows of width counters, halved every window sampled events
+    private final AtomicIntegerArray counters;
+
+    private final AtomicLong events = new AtomicLong();
+
+    private final AtomicBoolean decaying = new AtomicBoolean(false);
+
+    private final ConcurrentMap<Object, Entry> cache = new ConcurrentHashMap<>();
+
+    private volatile Placement current = null;
+
+    // lowest estimate in a full cache as of the last eviction scan, new keys must beat it
+    private volatile int floor = 0;
+
+    public HotKeyRouter(Supplier<Placement> placement, int replicas, int capacity, double threshold, boolean spread) {
+        if (replicas < 1 || capacity < 1) {
+            throw new IllegalArgumentException("replicas and capacity must be positive: " + replicas + ", " + capacity);
+        }
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold must be in (0, 1]: " + threshold);
+        }
+        this.placement = placement;
+        this.replicas = replicas;
+        this.capacity = capacity;
+        this.spread = spread;
+        this.width = Integer.highestOneBit(Math.max(capacity, 16) * 16 - 1) << 1;
+        this.window = (long) this.width * 16;
+        this.hotCount = threshold * this.window;
+        this.counters = new AtomicIntegerArray(DEPTH * this.width);
+    }
+
+    public <S> Node getNode(S key) {
+        Placement snapshot = snapshot();
+        if (snapshot == null) {
+            return null;
+        }
+        Entry entry = lookup(key, snapshot);
+        if (entry == null) {
+            return snapshot.getNode(key);
+        }
+        List<Node> nodes = entry.nodes();
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        return this.spread ? nodes.get(ThreadLocalRandom.current().nextInt(nodes.size())) : nodes.get(0);
+    }
+
+    public <S> List<Node> getNodes(S key) {
+        Placement snapshot = snapshot();
+        if (snapshot == null) {
+            return Collections.emptyList();
+        }
+        Entry entry = lookup(key, snapshot);
+        return entry == null ? snapshot.getNodes(key, this.replicas) : entry.nodes();
+    }
+
+    public <S> boolean isHot(S key) {
+        return estimate(cacheKey(key)) >= this.hotCount;
+    }
+
+    public int cached() {
+        return this.cache.size();
+    }
+
+    private Placement snapshot() {
+        Placement snapshot = this.placement.get();
+        if (snapshot != this.current) {
+            this.current = snapshot;
+            this.cache.clear();
+            this.floor = 0;
+        }
+        return snapshot;
+    }
+
+    private Entry lookup(Object key, Placement snapshot) {
+        Object cacheKey = cacheKey(key);
+        Entry entry = this.cache.get(cacheKey);
+        boolean sampled = ThreadLocalRandom.current().nextInt(SAMPLE) == 0;
+        if (entry != null && entry.snapshot() == snapshot) {
+            if (sampled) {
+                record(cacheKey);
+            }
+            return entry;
+        }
+        if (!sampled) {
+            return null;
+        }
+        int estimate = record(cacheKey);
+        if (estimate < this.hotCount) {
+            if (entry != null) {
+                this.cache.remove(cacheKey, entry);
+            }
+            return null;
+        }
+        return admit(key, cacheKey, snapshot, estimate);
+    }
+
+    private Entry admit(Object key, Object cacheKey, Placement snapshot, int estimate) {
+        if (this.cache.size() >= this.capacity && !this.cache.containsKey(cacheKey)) {
+            if (estimate <= this.floor) {
+                return null;
+            }
+            Object coldest = null;
+            int coldestEstimate = Integer.MAX_VALUE;
+            int runnerUp = Integer.MAX_VALUE;
+            for (Map.Entry<Object, Entry> cached : this.cache.entrySet()) {
+                int cachedEstimate = cached.getValue().snapshot() != snapshot ? -1 : estimate(cached.getKey());
+                if (cachedEstimate < coldestEstimate) {
+                    runnerUp = coldestEstimate;
+                    coldest = cached.getKey();
+                    coldestEstimate = cachedEstimate;
+                } else if (cachedEstimate < runnerUp) {
+                    runnerUp = cachedEstimate;
+                }
+            }
+            if (coldest == null || coldestEstimate >= estimate) {
+                this.floor = coldestEstimate;
+                return null;
+            }
+            this.cache.remove(coldest);
+            this.floor = Math.min(runnerUp, estimate);
+        }
+        Entry resolved = new Entry(snapshot, Collections.unmodifiableList(snapshot.getNodes(key, this.replicas)));
+        this.cache.put(key instanceof byte[] bytes ? ByteBuffer.wrap(bytes.clone()) : cacheKey, resolved);
+        return resolved;
+    }
+
+    private int record(Object key) {
+        long h = keyHash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, this.counters.incrementAndGet(slot(h, i)));
+        }
+        if (this.events.incrementAndGet() % this.window == 0 && this.decaying.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::decay);
+        }
+        return estimate;
+    }
+
+    private void decay() {
+        try {
+            for (int i = 0; i < this.counters.length(); i++) {
+                this.counters.updateAndGet(i, count -> count >>> 1);
+            }
+            this.floor = this.floor >>> 1;
+        } finally {
+            this.decaying.set(false);
+        }
+    }
+
+    private int estimate(Object key) {
+        long h = keyHash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, this.counters.get(slot(h, i)));
+        }
+        return estimate;
+    }
+
+    // arrays hash and compare by identity, so they are looked up by content instead
+    private static Object cacheKey(Object key) {
+        return key instanceof byte[] bytes ? ByteBuffer.wrap(bytes) : key;
+    }
+
+    private static long keyHash(Object key) {
+        return key instanceof ByteBuffer buffer
+                ? HashFunctions.murmur3x64(buffer, 0)
+                : HashFunctions.murmur3x64(key.hashCode(), 0, 0);
+    }
+
+    private int slot(long h, int row) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        return row * this.width + ((h1 + row * h2) & (this.width - 1));
+    }
+
+}
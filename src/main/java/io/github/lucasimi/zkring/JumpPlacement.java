@@ -0,0 +1,62 @@
+package io.github.lucasimi.zkring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class JumpPlacement extends NodeSetPlacement<JumpPlacement.Buckets> {
+
+    // buckets follow UUID order so every client agrees; the price is that joins and leaves remap many keys
+    record Buckets(Node[] nodes) implements NodeSetPlacement.Table {}
+
+    public JumpPlacement(Hash hash) {
+        super(hash);
+        init();
+    }
+
+    @Override
+    protected Buckets build(Node[] nodes) {
+        return new Buckets(nodes);
+    }
+
+    @Override
+    protected JumpPlacement newInstance() {
+        return new JumpPlacement(hash);
+    }
+
+    @Override
+    public <S> Node getNode(S obj) {
+        Node[] nodes = table().nodes();
+        if (nodes.length == 0) {
+            return null;
+        }
+        return nodes[bucket(hash.hash(obj), nodes.length)];
+    }
+
+    @Override
+    public <S> List<Node> getNodes(S obj, int num) {
+        Node[] nodes = table().nodes();
+        if (nodes.length == 0) {
+            return Collections.emptyList();
+        }
+        int count = Math.min(num, nodes.length);
+        List<Node> peers = new ArrayList<>(count);
+        int first = bucket(hash.hash(obj), nodes.length);
+        for (int k = 0; k < count; k++) {
+            peers.add(nodes[(first + k) % nodes.length]);
+        }
+        return peers;
+    }
+
+    static int bucket(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.github.lucasimi.zkring;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadTracker {
+
+    private final double epsilon;
+
+    private final ConcurrentMap<Node, LongAdder> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder total = new LongAdder();
+
+    public LoadTracker(double epsilon) {
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("epsilon must be non-negative: " + epsilon);
+        }
+        this.epsilon = epsilon;
+    }
+
+    public void increment(Node node) {
+        add(node, 1);
+    }
+
+    public void decrement(Node node) {
+        add(node, -1);
+    }
+
+    public void add(Node node, long delta) {
+        this.loads.computeIfAbsent(node, n -> new LongAdder()).add(delta);
+        this.total.add(delta);
+    }
+
+    public void reset(Node node) {
+        LongAdder load = this.loads.remove(node);
+        if (load != null) {
+            this.total.add(-load.sum());
+        }
+    }
+
+    public long load(Node node) {
+        LongAdder load = this.loads.get(node);
+        return load == null ? 0 : load.sum();
+    }
+
+    public long total() {
+        return this.total.sum();
+    }
+
+    long capacity(int nodes) {
+        return (long) Math.ceil((1 + epsilon) * (total() + 1) / nodes);
+    }
+
+}
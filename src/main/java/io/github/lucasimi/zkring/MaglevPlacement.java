@@ -0,0 +1,89 @@
+package io.github.lucasimi.zkring;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MaglevPlacement extends NodeSetPlacement<MaglevPlacement.Lookup> {
+
+    static final int DEFAULT_TABLE_SIZE = 65_537;
+
+    record Lookup(Node[] nodes, int[] slots) implements NodeSetPlacement.Table {}
+
+    private final int tableSize;
+
+    public MaglevPlacement(int tableSize, Hash hash) {
+        super(hash);
+        if (tableSize < 2 || !BigInteger.valueOf(tableSize).isProbablePrime(32)) {
+            throw new IllegalArgumentException("Maglev table size must be prime: " + tableSize);
+        }
+        this.tableSize = tableSize;
+        init();
+    }
+
+    @Override
+    protected Lookup build(Node[] nodes) {
+        int n = nodes.length;
+        if (n == 0) {
+            return new Lookup(nodes, new int[0]);
+        }
+        long[] offsets = new long[n];
+        long[] skips = new long[n];
+        long[] next = new long[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = Math.floorMod(nodeHash(nodes[i], 0), tableSize);
+            skips[i] = Math.floorMod(nodeHash(nodes[i], 1), tableSize - 1) + 1;
+        }
+        int[] slots = new int[tableSize];
+        Arrays.fill(slots, -1);
+        int filled = 0;
+        while (filled < tableSize) {
+            for (int i = 0; i < n && filled < tableSize; i++) {
+                int slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                while (slots[slot] >= 0) {
+                    next[i]++;
+                    slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                }
+                slots[slot] = i;
+                next[i]++;
+                filled++;
+            }
+        }
+        return new Lookup(nodes, slots);
+    }
+
+    @Override
+    protected MaglevPlacement newInstance() {
+        return new MaglevPlacement(tableSize, hash);
+    }
+
+    @Override
+    public <S> Node getNode(S obj) {
+        Lookup lookup = table();
+        if (lookup.slots().length == 0) {
+            return null;
+        }
+        return lookup.nodes()[lookup.slots()[Math.floorMod(hash.hash(obj), tableSize)]];
+    }
+
+    @Override
+    public <S> List<Node> getNodes(S obj, int num) {
+        Lookup lookup = table();
+        int count = Math.min(num, lookup.nodes().length);
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        List<Node> peers = new ArrayList<>(count);
+        int first = Math.floorMod(hash.hash(obj), tableSize);
+        for (int k = 0; k < tableSize && peers.size() < count; k++) {
+            Node peer = lookup.nodes()[lookup.slots()[(first + k) % tableSize]];
+            if (!peers.contains(peer)) {
+                peers.add(peer);
+            }
+        }
+        return peers;
+    }
+
+}
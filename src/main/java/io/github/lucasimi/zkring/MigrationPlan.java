@@ -0,0 +1,128 @@
+package io.github.lucasimi.zkring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public final class MigrationPlan {
+
+    public interface Listener {
+
+        void onMigration(String ringId, MigrationPlan plan);
+
+    }
+
+    public record Transfer(int start, int end, Node from, Node to) {
+
+        public int partitions() {
+            return end - start;
+        }
+
+    }
+
+    private final int partitions;
+
+    private final List<Transfer> transfers;
+
+    private MigrationPlan(int partitions, List<Transfer> transfers) {
+        this.partitions = partitions;
+        this.transfers = Collections.unmodifiableList(transfers);
+    }
+
+    public static MigrationPlan between(HashRing previous, HashRing next) {
+        if (previous.partitions() != next.partitions()) {
+            throw new IllegalArgumentException("Rings have different partitions: "
+                    + previous.partitions() + " and " + next.partitions());
+        }
+        return between(previous.index(), next.index(), next.partitions());
+    }
+
+    static MigrationPlan between(RingIndex previous, RingIndex next, int partitions) {
+        int[] bounds = new int[previous.size() + next.size() + 2];
+        int size = 0;
+        bounds[size++] = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            bounds[size++] = previous.position(i);
+        }
+        for (int i = 0; i < next.size(); i++) {
+            bounds[size++] = next.position(i);
+        }
+        bounds[size++] = partitions;
+        Arrays.sort(bounds, 0, size);
+        List<Transfer> transfers = new ArrayList<>();
+        Transfer pending = null;
+        for (int b = 0; b + 1 < size; b++) {
+            int start = bounds[b];
+            int end = bounds[b + 1];
+            if (start == end) {
+                continue;
+            }
+            Node from = ownerAt(previous, start);
+            Node to = ownerAt(next, start);
+            if (Objects.equals(from, to)) {
+                continue;
+            }
+            if (pending != null && pending.end() == start
+                    && Objects.equals(pending.from(), from) && Objects.equals(pending.to(), to)) {
+                pending = new Transfer(pending.start(), end, from, to);
+            } else {
+                if (pending != null) {
+                    transfers.add(pending);
+                }
+                pending = new Transfer(start, end, from, to);
+            }
+        }
+        if (pending != null) {
+            transfers.add(pending);
+        }
+        return new MigrationPlan(partitions, transfers);
+    }
+
+    private static Node ownerAt(RingIndex ring, int partition) {
+        int i = ring.next(partition);
+        return i < 0 ? null : ring.owner(i);
+    }
+
+    public int partitions() {
+        return this.partitions;
+    }
+
+    public List<Transfer> transfers() {
+        return this.transfers;
+    }
+
+    public boolean isEmpty() {
+        return this.transfers.isEmpty();
+    }
+
+    public int movedPartitions() {
+        int moved = 0;
+        for (Transfer transfer : this.transfers) {
+            moved += transfer.partitions();
+        }
+        return moved;
+    }
+
+    public List<Transfer> transfersFrom(Node node) {
+        List<Transfer> matching = new ArrayList<>();
+        for (Transfer transfer : this.transfers) {
+            if (Objects.equals(node, transfer.from())) {
+                matching.add(transfer);
+            }
+        }
+        return matching;
+    }
+
+    public List<Transfer> transfersTo(Node node) {
+        List<Transfer> matching = new ArrayList<>();
+        for (Transfer transfer : this.transfers) {
+            if (Objects.equals(node, transfer.to())) {
+                matching.add(transfer);
+            }
+        }
+        return matching;
+    }
+
+}
@@ -3,4 +3,37 @@ package io.github.lucasimi.zkring;
 import java.io.Serializable;
 import java.util.UUID;
 
-public record Node(UUID uuid, String address, int port) implements Serializable {}
+public record Node(UUID uuid, String address, int port, int weight, String zone) implements Serializable {
+
+    public static final int MAX_WEIGHT = 1 << 16;
+
+    public Node {
+        if (weight < 0 || weight > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Node weight must be in [0, " + MAX_WEIGHT + "]: " + weight);
+        }
+        if (weight == 0) {
+            weight = 1;
+        }
+    }
+
+    public Node(UUID uuid, String address, int port) {
+        this(uuid, address, port, 1, null);
+    }
+
+    public Node(UUID uuid, String address, int port, int weight) {
+        this(uuid, address, port, weight, null);
+    }
+
+    public Node withWeight(int weight) {
+        return new Node(uuid, address, port, weight, zone);
+    }
+
+    public Node withZone(String zone) {
+        return new Node(uuid, address, port, weight, zone);
+    }
+
+    public Node plain() {
+        return weight == 1 && zone == null ? this : new Node(uuid, address, port);
+    }
+
+}
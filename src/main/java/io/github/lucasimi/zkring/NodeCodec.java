@@ -0,0 +1,105 @@
+package io.github.lucasimi.zkring;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+final class NodeCodec {
+
+    static final byte MAGIC = 0x5a;
+
+    static final byte VERSION = 1;
+
+    static final byte WEIGHT = 1;
+
+    static final byte ZONE = 2;
+
+    private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xac;
+
+    private NodeCodec() {}
+
+    static byte[] encode(Node node) {
+        byte[] address = node.address().getBytes(StandardCharsets.UTF_8);
+        if (address.length > 0xffff) {
+            throw new IllegalArgumentException("Node address too long: " + address.length + " bytes");
+        }
+        byte[] zone = node.zone() == null ? null : node.zone().getBytes(StandardCharsets.UTF_8);
+        if (zone != null && zone.length > 0xffff) {
+            throw new IllegalArgumentException("Node zone too long: " + zone.length + " bytes");
+        }
+        boolean weighted = node.weight() != 1;
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 16 + 2 + address.length + 4 + 1
+                + (weighted ? 7 : 0) + (zone != null ? 3 + zone.length : 0));
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(node.uuid().getMostSignificantBits());
+        buffer.putLong(node.uuid().getLeastSignificantBits());
+        buffer.putShort((short) address.length);
+        buffer.put(address);
+        buffer.putInt(node.port());
+        buffer.put((byte) ((weighted ? 1 : 0) + (zone != null ? 1 : 0)));
+        if (weighted) {
+            buffer.put(WEIGHT);
+            buffer.putShort((short) 4);
+            buffer.putInt(node.weight());
+        }
+        if (zone != null) {
+            buffer.put(ZONE);
+            buffer.putShort((short) zone.length);
+            buffer.put(zone);
+        }
+        return buffer.array();
+    }
+
+    static Node decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] == JAVA_SERIALIZATION_MAGIC) {
+            try {
+                return Utils.deserialize(data, Node.class);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unreadable legacy node record", e);
+            }
+        }
+        try {
+            return decode(ByteBuffer.wrap(data));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated node record", e);
+        }
+    }
+
+    static Node decode(ByteBuffer buffer) {
+        byte magic = buffer.get();
+        byte version = buffer.get();
+        if (magic != MAGIC || version < 1) {
+            throw new IllegalArgumentException("Unsupported node record " + magic + "/" + version);
+        }
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        byte[] address = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(address);
+        int port = buffer.getInt();
+        int weight = 1;
+        String zone = null;
+        int fields = Byte.toUnsignedInt(buffer.get());
+        for (int i = 0; i < fields; i++) {
+            byte tag = buffer.get();
+            int length = Short.toUnsignedInt(buffer.getShort());
+            int end = buffer.position() + length;
+            if (tag == WEIGHT && length == 4) {
+                weight = buffer.getInt();
+                if (weight < 0 || weight > Node.MAX_WEIGHT) {
+                    throw new IllegalArgumentException("Node record weight out of range: " + weight);
+                }
+            } else if (tag == ZONE) {
+                byte[] zoneBytes = new byte[length];
+                buffer.get(zoneBytes);
+                zone = new String(zoneBytes, StandardCharsets.UTF_8);
+            }
+            buffer.position(end);
+        }
+        return new Node(uuid, new String(address, StandardCharsets.UTF_8), port, weight, zone);
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.github.lucasimi.zkring;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+abstract class NodeSetPlacement<T extends NodeSetPlacement.Table> implements Placement {
+
+    interface Table {
+
+        Node[] nodes();
+
+    }
+
+    private static final Comparator<Node> ORDER = Comparator.comparing(Node::uuid);
+
+    protected final Hash hash;
+
+    private volatile T table;
+
+    protected NodeSetPlacement(Hash hash) {
+        this.hash = hash;
+    }
+
+    protected abstract T build(Node[] nodes);
+
+    protected abstract NodeSetPlacement<T> newInstance();
+
+    protected T table() {
+        return this.table;
+    }
+
+    protected void init() {
+        this.table = build(new Node[0]);
+    }
+
+    @Override
+    public void addAll(Collection<Node> peers) {
+        update(Collections.emptyList(), peers);
+    }
+
+    @Override
+    public void removeAll(Collection<Node> peers) {
+        update(peers, Collections.emptyList());
+    }
+
+    @Override
+    public synchronized void update(Collection<Node> removed, Collection<Node> added) {
+        Set<Node> members = new HashSet<>(Arrays.asList(this.table.nodes()));
+        members.removeAll(removed);
+        members.addAll(added);
+        Node[] sorted = members.toArray(new Node[0]);
+        Arrays.sort(sorted, ORDER);
+        this.table = build(sorted);
+    }
+
+    @Override
+    public synchronized Placement copy() {
+        NodeSetPlacement<T> copy = newInstance();
+        copy.table = this.table;
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return this.table.nodes().length;
+    }
+
+    protected static long nodeHash(Node node, int seed) {
+        return HashFunctions.murmur3x64(node.uuid().getMostSignificantBits(),
+                node.uuid().getLeastSignificantBits(), seed);
+    }
+
+}
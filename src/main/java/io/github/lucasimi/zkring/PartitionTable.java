@@ -0,0 +1,102 @@
+package io.github.lucasimi.zkring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public final class PartitionTable {
+
+    static final long MAX_CELLS = 1L << 28;
+
+    private final int partitions;
+
+    private final int owners;
+
+    private final Node[] table;
+
+    private PartitionTable(int partitions, int owners, Node[] table) {
+        this.partitions = partitions;
+        this.owners = owners;
+        this.table = table;
+    }
+
+    static PartitionTable of(RingIndex ring, int partitions, int owners) {
+        int width = Math.min(owners, ring.nodes());
+        if ((long) partitions * width > MAX_CELLS) {
+            throw new IllegalArgumentException("Partition table too large: " + partitions + " x " + width);
+        }
+        Node[] table = new Node[partitions * width];
+        int size = ring.size();
+        if (size == 0) {
+            return new PartitionTable(partitions, width, table);
+        }
+        Node[] preferences = new Node[size * width];
+        List<Node> peers = new ArrayList<>(width);
+        for (int i = 0; i < size; i++) {
+            peers.clear();
+            for (int k = 0; k < size && peers.size() < width; k++) {
+                Node peer = ring.owner((i + k) % size);
+                if (!peers.contains(peer)) {
+                    peers.add(peer);
+                }
+            }
+            for (int r = 0; r < width; r++) {
+                preferences[i * width + r] = peers.get(r);
+            }
+        }
+        int j = 0;
+        for (int p = 0; p < partitions; p++) {
+            while (j < size && ring.position(j) <= p) {
+                j++;
+            }
+            System.arraycopy(preferences, (j == size ? 0 : j) * width, table, p * width, width);
+        }
+        return new PartitionTable(partitions, width, table);
+    }
+
+    public int partitions() {
+        return this.partitions;
+    }
+
+    public int owners() {
+        return this.owners;
+    }
+
+    public Node owner(int partition) {
+        return this.owners == 0 ? null : this.table[partition * this.owners];
+    }
+
+    public Node owner(int partition, int rank) {
+        return this.table[partition * this.owners + rank];
+    }
+
+    public List<Node> owners(int partition) {
+        return owners(partition, this.owners);
+    }
+
+    public List<Node> owners(int partition, int num) {
+        int from = partition * this.owners;
+        int count = Math.min(num, this.owners);
+        return count == 0
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(this.table).subList(from, from + count));
+    }
+
+    public void forEachOwned(Node node, IntConsumer action) {
+        forEachOwned(node, 0, action);
+    }
+
+    public void forEachOwned(Node node, int rank, IntConsumer action) {
+        if (rank >= this.owners) {
+            return;
+        }
+        for (int p = 0; p < this.partitions; p++) {
+            if (node.equals(this.table[p * this.owners + rank])) {
+                action.accept(p);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package io.github.lucasimi.zkring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public interface Placement {
+
+    @FunctionalInterface
+    public interface Factory {
+
+        Placement create(int partitions, int replication, Hash hash);
+
+    }
+
+    Factory HASH_RING = HashRing::new;
+
+    Factory JUMP = (partitions, replication, hash) -> new JumpPlacement(hash);
+
+    Factory RENDEZVOUS = (partitions, replication, hash) -> new RendezvousPlacement(hash);
+
+    Factory MAGLEV = maglev(MaglevPlacement.DEFAULT_TABLE_SIZE);
+
+    static Factory partitioned(int owners) {
+        return (partitions, replication, hash) -> {
+            HashRing ring = new HashRing(partitions, replication, hash);
+            ring.enablePartitionTable(owners);
+            return ring;
+        };
+    }
+
+    static Factory maglev(int tableSize) {
+        return (partitions, replication, hash) -> new MaglevPlacement(tableSize, hash);
+    }
+
+    <S> Node getNode(S obj);
+
+    <S> List<Node> getNodes(S obj, int num);
+
+    default <S> List<Node> getNodes(S obj, int num, boolean zoneAware) {
+        if (!zoneAware) {
+            return getNodes(obj, num);
+        }
+        List<Node> candidates = getNodes(obj, size());
+        int count = Math.min(num, candidates.size());
+        List<Node> peers = new ArrayList<>(Math.max(count, 0));
+        for (Node candidate : candidates) {
+            if (peers.size() < count && !Utils.containsZone(peers, candidate)) {
+                peers.add(candidate);
+            }
+        }
+        for (Node candidate : candidates) {
+            if (peers.size() < count && !peers.contains(candidate)) {
+                peers.add(candidate);
+            }
+        }
+        return peers;
+    }
+
+    void addAll(Collection<Node> peers);
+
+    void removeAll(Collection<Node> peers);
+
+    default void add(Node peer) {
+        addAll(Collections.singletonList(peer));
+    }
+
+    default void remove(Node peer) {
+        removeAll(Collections.singletonList(peer));
+    }
+
+    Placement copy();
+
+    int size();
+
+    default void update(Collection<Node> removed, Collection<Node> added) {
+        removeAll(removed);
+        addAll(added);
+    }
+
+    default <S> Node getNode(S obj, LoadTracker loads) {
+        List<Node> candidates = getNodes(obj, size());
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        long capacity = loads.capacity(candidates.size());
+        for (Node candidate : candidates) {
+            if (loads.load(candidate) < capacity) {
+                return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+}
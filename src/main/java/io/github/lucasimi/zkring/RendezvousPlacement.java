@@ -0,0 +1,81 @@
+package io.github.lucasimi.zkring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RendezvousPlacement extends NodeSetPlacement<RendezvousPlacement.Seeds> {
+
+    record Seeds(Node[] nodes, long[] seeds) implements NodeSetPlacement.Table {}
+
+    public RendezvousPlacement(Hash hash) {
+        super(hash);
+        init();
+    }
+
+    @Override
+    protected Seeds build(Node[] nodes) {
+        long[] seeds = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            seeds[i] = nodeHash(nodes[i], 0);
+        }
+        return new Seeds(nodes, seeds);
+    }
+
+    @Override
+    protected RendezvousPlacement newInstance() {
+        return new RendezvousPlacement(hash);
+    }
+
+    @Override
+    public <S> Node getNode(S obj) {
+        Seeds table = table();
+        long[] seeds = table.seeds();
+        if (seeds.length == 0) {
+            return null;
+        }
+        int key = hash.hash(obj);
+        int best = 0;
+        long bestScore = score(key, seeds[0]);
+        for (int i = 1; i < seeds.length; i++) {
+            long score = score(key, seeds[i]);
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return table.nodes()[best];
+    }
+
+    @Override
+    public <S> List<Node> getNodes(S obj, int num) {
+        Seeds table = table();
+        long[] seeds = table.seeds();
+        int count = Math.min(num, seeds.length);
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        int key = hash.hash(obj);
+        long[] scores = new long[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            scores[i] = score(key, seeds[i]);
+        }
+        List<Node> peers = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            int best = -1;
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] != Long.MIN_VALUE && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            peers.add(table.nodes()[best]);
+            scores[best] = Long.MIN_VALUE;
+        }
+        return peers;
+    }
+
+    private static long score(int key, long seed) {
+        return HashFunctions.murmur3x64(key, seed, 0) >>> 1;
+    }
+
+}
@@ -0,0 +1,215 @@
+package io.github.lucasimi.zkring;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+final class RingIndex {
+
+    static final RingIndex EMPTY = new RingIndex(new int[0], new int[0], new Node[0]);
+
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    // every registered vnode sorted by position, colliding vnodes included
+    private final int[] entryPositions;
+
+    private final int[] entryHashes;
+
+    private final Node[] entryOwners;
+
+    // one winner per distinct position, used by lookups
+    private final int[] positions;
+
+    private final Node[] owners;
+
+    private final int nodes;
+
+    private RingIndex(int[] entryPositions, int[] entryHashes, Node[] entryOwners) {
+        this.entryPositions = entryPositions;
+        this.entryHashes = entryHashes;
+        this.entryOwners = entryOwners;
+        int[] ringPositions = new int[entryPositions.length];
+        Node[] ringOwners = new Node[entryPositions.length];
+        int size = 0;
+        int i = 0;
+        while (i < entryPositions.length) {
+            int winner = i;
+            int j = i + 1;
+            while (j < entryPositions.length && entryPositions[j] == entryPositions[i]) {
+                if (wins(j, winner)) {
+                    winner = j;
+                }
+                j++;
+            }
+            ringPositions[size] = entryPositions[i];
+            ringOwners[size] = entryOwners[winner];
+            size++;
+            i = j;
+        }
+        this.positions = Arrays.copyOf(ringPositions, size);
+        this.owners = Arrays.copyOf(ringOwners, size);
+        this.nodes = new HashSet<>(Arrays.asList(this.owners)).size();
+    }
+
+    static RingIndex of(int[] positions, int[] hashes, Node[] owners) {
+        int length = positions.length;
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) positions[i] << 32) | i;
+        }
+        int[] sortedPositions = new int[length];
+        int[] sortedHashes = new int[length];
+        Node[] sortedOwners = new Node[length];
+        IntConsumer permute = i -> {
+            int j = (int) keys[i];
+            sortedPositions[i] = positions[j];
+            sortedHashes[i] = hashes[j];
+            sortedOwners[i] = owners[j];
+        };
+        if (length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(keys);
+            IntStream.range(0, length).parallel().forEach(permute);
+        } else {
+            Arrays.sort(keys);
+            IntStream.range(0, length).forEach(permute);
+        }
+        return new RingIndex(sortedPositions, sortedHashes, sortedOwners);
+    }
+
+    static RingIndex union(Collection<RingIndex> indexes) {
+        int length = 0;
+        for (RingIndex index : indexes) {
+            length += index.entryPositions.length;
+        }
+        int[] positions = new int[length];
+        int[] hashes = new int[length];
+        Node[] owners = new Node[length];
+        int offset = 0;
+        for (RingIndex index : indexes) {
+            int size = index.entryPositions.length;
+            System.arraycopy(index.entryPositions, 0, positions, offset, size);
+            System.arraycopy(index.entryHashes, 0, hashes, offset, size);
+            System.arraycopy(index.entryOwners, 0, owners, offset, size);
+            offset += size;
+        }
+        return of(positions, hashes, owners);
+    }
+
+    RingIndex merge(RingIndex other) {
+        if (other.entryPositions.length == 0) {
+            return this;
+        }
+        int length = this.entryPositions.length + other.entryPositions.length;
+        int[] mergedPositions = new int[length];
+        int[] mergedHashes = new int[length];
+        Node[] mergedOwners = new Node[length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < this.entryPositions.length || j < other.entryPositions.length) {
+            boolean fromThis = j == other.entryPositions.length
+                    || (i < this.entryPositions.length && this.entryPositions[i] <= other.entryPositions[j]);
+            RingIndex source = fromThis ? this : other;
+            int k = fromThis ? i++ : j++;
+            if (!contains(mergedPositions, mergedHashes, mergedOwners, size,
+                    source.entryPositions[k], source.entryHashes[k], source.entryOwners[k])) {
+                mergedPositions[size] = source.entryPositions[k];
+                mergedHashes[size] = source.entryHashes[k];
+                mergedOwners[size] = source.entryOwners[k];
+                size++;
+            }
+        }
+        return new RingIndex(
+                Arrays.copyOf(mergedPositions, size),
+                Arrays.copyOf(mergedHashes, size),
+                Arrays.copyOf(mergedOwners, size));
+    }
+
+    RingIndex without(Set<Node> peers) {
+        int length = this.entryPositions.length;
+        int[] keptPositions = new int[length];
+        int[] keptHashes = new int[length];
+        Node[] keptOwners = new Node[length];
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            if (!peers.contains(this.entryOwners[i])) {
+                keptPositions[size] = this.entryPositions[i];
+                keptHashes[size] = this.entryHashes[i];
+                keptOwners[size] = this.entryOwners[i];
+                size++;
+            }
+        }
+        if (size == length) {
+            return this;
+        }
+        return new RingIndex(
+                Arrays.copyOf(keptPositions, size),
+                Arrays.copyOf(keptHashes, size),
+                Arrays.copyOf(keptOwners, size));
+    }
+
+    int size() {
+        return this.positions.length;
+    }
+
+    int entries() {
+        return this.entryPositions.length;
+    }
+
+    int nodes() {
+        return this.nodes;
+    }
+
+    Set<Node> peers() {
+        return new HashSet<>(Arrays.asList(this.entryOwners));
+    }
+
+    Node owner(int index) {
+        return this.owners[index];
+    }
+
+    int position(int index) {
+        return this.positions[index];
+    }
+
+    int next(int position) {
+        int size = this.positions.length;
+        if (size == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.positions[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == size ? 0 : low;
+    }
+
+    private boolean wins(int challenger, int winner) {
+        int challengerHash = this.entryHashes[challenger];
+        int winnerHash = this.entryHashes[winner];
+        if (challengerHash != winnerHash) {
+            return challengerHash > winnerHash;
+        }
+        return this.entryOwners[challenger].uuid().compareTo(this.entryOwners[winner].uuid()) > 0;
+    }
+
+    private static boolean contains(int[] positions, int[] hashes, Node[] owners, int size,
+            int position, int hash, Node owner) {
+        for (int i = size - 1; i >= 0 && positions[i] == position; i--) {
+            if (hashes[i] == hash && owners[i].equals(owner)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
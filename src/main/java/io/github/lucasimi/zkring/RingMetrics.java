@@ -0,0 +1,36 @@
+package io.github.lucasimi.zkring;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.zookeeper.KeeperException;
+
+public interface RingMetrics {
+
+    RingMetrics NOOP = new RingMetrics() {};
+
+    default void lookups(String ringId, LongAdder counter) {}
+
+    default void rebuilt(String ringId, long nanos) {}
+
+    default void converged(String ringId, long nanos) {}
+
+    default void ownership(String ringId, Map<Node, Double> shares) {}
+
+    default void zkCall(String operation) {}
+
+    default void zkError(String operation, KeeperException.Code code) {}
+
+    static double variance(Map<Node, Double> shares) {
+        if (shares.isEmpty()) {
+            return 0.0;
+        }
+        double mean = 1.0 / shares.size();
+        double sum = 0.0;
+        for (double share : shares.values()) {
+            sum += (share - mean) * (share - mean);
+        }
+        return sum / shares.size();
+    }
+
+}
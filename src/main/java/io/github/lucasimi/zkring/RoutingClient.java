@@ -0,0 +1,99 @@
+package io.github.lucasimi.zkring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class RoutingClient {
+
+    private final ZkRing ring;
+
+    private final String ringId;
+
+    public RoutingClient(ZkRing ring, String ringId) {
+        this.ring = ring;
+        this.ringId = ringId;
+    }
+
+    public <S, R> CompletableFuture<R> call(S key, Function<Node, CompletableFuture<R>> action) {
+        return hedge(key, 1, Duration.ZERO, action);
+    }
+
+    public <S, R> CompletableFuture<R> hedge(S key, int replicas, Duration delay,
+            Function<Node, CompletableFuture<R>> action) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        List<Node> nodes = this.ring.getNodes(this.ringId, key, replicas);
+        if (nodes.isEmpty()) {
+            result.completeExceptionally(new IllegalStateException("No nodes in ring " + this.ringId));
+            return result;
+        }
+        Hedge<R> hedge = new Hedge<>(nodes, action, result);
+        for (int i = 0; i < nodes.size(); i++) {
+            Executor executor = i == 0 || delay.isZero()
+                    ? Runnable::run
+                    : CompletableFuture.delayedExecutor(delay.toNanos() * i, TimeUnit.NANOSECONDS);
+            executor.execute(hedge::next);
+        }
+        return result;
+    }
+
+    // attempts start in replica order, on their delay or as soon as every started attempt has failed
+    private static class Hedge<R> {
+
+        private final List<Node> nodes;
+
+        private final Function<Node, CompletableFuture<R>> action;
+
+        private final CompletableFuture<R> result;
+
+        private final List<CompletableFuture<R>> attempts = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger started = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        Hedge(List<Node> nodes, Function<Node, CompletableFuture<R>> action, CompletableFuture<R> result) {
+            this.nodes = nodes;
+            this.action = action;
+            this.result = result;
+        }
+
+        void next() {
+            if (result.isDone()) {
+                return;
+            }
+            int i = started.getAndIncrement();
+            if (i >= nodes.size()) {
+                return;
+            }
+            CompletableFuture<R> attempt;
+            try {
+                attempt = action.apply(nodes.get(i));
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            attempts.add(attempt);
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    if (result.complete(value)) {
+                        attempts.forEach(other -> other.cancel(true));
+                    }
+                    return;
+                }
+                int failed = failures.incrementAndGet();
+                if (failed == nodes.size()) {
+                    result.completeExceptionally(error);
+                } else if (failed >= started.get()) {
+                    next();
+                }
+            });
+        }
+
+    }
+
+}
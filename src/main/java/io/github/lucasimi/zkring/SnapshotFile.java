@@ -0,0 +1,95 @@
+package io.github.lucasimi.zkring;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+final class SnapshotFile {
+
+    static final int MAGIC = 0x5a52494e;
+
+    static final byte VERSION = 1;
+
+    record Entry(String child, long mzxid, Node node) {}
+
+    private SnapshotFile() {}
+
+    static void write(Path file, List<Entry> entries) throws IOException {
+        List<byte[]> children = new ArrayList<>(entries.size());
+        List<byte[]> nodes = new ArrayList<>(entries.size());
+        int length = 4 + 1 + 4;
+        for (Entry entry : entries) {
+            byte[] child = entry.child().getBytes(StandardCharsets.UTF_8);
+            byte[] node = NodeCodec.encode(entry.node());
+            children.add(child);
+            nodes.add(node);
+            length += 4 + child.length + 8 + 4 + node.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            buffer.putInt(children.get(i).length);
+            buffer.put(children.get(i));
+            buffer.putLong(entries.get(i).mzxid());
+            buffer.putInt(nodes.get(i).length);
+            buffer.put(nodes.get(i));
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static List<Entry> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated snapshot file " + file, e);
+        }
+    }
+
+    private static List<Entry> read(ByteBuffer buffer) {
+        int magic = buffer.getInt();
+        byte version = buffer.get();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot file " + magic + "/" + version);
+        }
+        int size = buffer.getInt();
+        List<Entry> entries = new ArrayList<>(Math.min(size, buffer.remaining()));
+        for (int i = 0; i < size; i++) {
+            byte[] child = new byte[buffer.getInt()];
+            buffer.get(child);
+            long mzxid = buffer.getLong();
+            int length = buffer.getInt();
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            Node node = NodeCodec.decode(record);
+            entries.add(new Entry(new String(child, StandardCharsets.UTF_8), mzxid, node));
+        }
+        return entries;
+    }
+
+}
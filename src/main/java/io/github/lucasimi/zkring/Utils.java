@@ -56,6 +56,16 @@ public class Utils {
         return toReturn;
     }
 
+    static boolean containsZone(List<Node> peers, Node peer) {
+        for (int i = 0; i < peers.size(); i++) {
+            Node other = peers.get(i);
+            if (other.equals(peer) || (peer.zone() != null && peer.zone().equals(other.zone()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static <S> List<S> singletonList(S obj) {
         List<S> l = new LinkedList<>();
         l.add(obj);
@@ -1,20 +1,47 @@
 package io.github.lucasimi.zkring;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
+import org.apache.zookeeper.AddWatchMode;
 import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.WatcherType;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,11 +49,19 @@ public class ZkRing {
  
     private static final Logger LOGGER = LoggerFactory.getLogger(ZkRing.class);
 
+    private static final long RETRY_DELAY_MS = 1000;
+
+    public interface Listener {
+
+        void onChange(String ringId, Placement previous, Placement next);
+
+    }
+
     private final String connectString;
 
     private final int sessionTimeout;
 
-    private final Node identity;
+    private volatile Node identity;
 
     private final int partitions;
 
@@ -34,51 +69,343 @@ public class ZkRing {
 
     private final Hash hash;
 
-    private final Map<String, HashRing> rings = new HashMap<>();
+    private final Placement.Factory placement;
+
+    private final int debounce;
+
+    private final Path snapshotDirectory;
+
+    private final RingMetrics metrics;
+
+    private final double balanceTarget;
+
+    private final long maxVNodes;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "zkring-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService listenerThread;
+
+    private final Executor notifier;
+
+    private final ConcurrentMap<String, RingState> rings = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<MigrationPlan.Listener> migrationListeners = new CopyOnWriteArrayList<>();
+
+    private volatile ZooKeeper zk;
+
+    private volatile boolean connected = false;
+
+    // persistent watches do not replay events missed while disconnected
+    private volatile boolean disconnected = false;
+
+    private volatile boolean closed = false;
+
+    private record Member(Node node, long mzxid) {}
+
+    private record VersionWaiter(long version, CompletableFuture<Long> future) {}
+
+    private class RingState {
+
+        private final String ringId;
+
+        private final Map<String, Member> members = new HashMap<>();
+
+        private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+        private final AtomicBoolean retryPending = new AtomicBoolean(false);
+
+        // children created or deleted during the debounce window, refetched even if cached
+        private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+        // when the first event of the pending debounce window was observed
+        private volatile long observed;
+
+        private final LongAdder lookups = new LongAdder();
+
+        private final Watcher watcher;
+
+        private volatile Placement snapshot = placement.create(partitions, replication, hash);
+
+        private volatile long version = 0;
 
-    private ZooKeeper zk;
+        private final ReentrantLock lock = new ReentrantLock();
 
-    private AsyncCallback.ChildrenCallback childrenCallback(String ringId) {
+        private final Condition changed = lock.newCondition();
+
+        private final List<VersionWaiter> waiters = new ArrayList<>();
+
+        private boolean closed = false;
+
+        RingState(String ringId) {
+            this.ringId = ringId;
+            this.watcher = ringWatcher(ringId);
+        }
+
+        void publish(Placement next) {
+            List<VersionWaiter> ready = new ArrayList<>();
+            long published;
+            lock.lock();
+            try {
+                snapshot = next;
+                published = ++version;
+                changed.signalAll();
+                Iterator<VersionWaiter> pending = waiters.iterator();
+                while (pending.hasNext()) {
+                    VersionWaiter waiter = pending.next();
+                    if (waiter.version() <= published) {
+                        ready.add(waiter);
+                        pending.remove();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!ready.isEmpty()) {
+                notifier.execute(() -> ready.forEach(waiter -> waiter.future().complete(published)));
+            }
+        }
+
+        void close() {
+            List<VersionWaiter> pending;
+            lock.lock();
+            try {
+                closed = true;
+                pending = new ArrayList<>(waiters);
+                waiters.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (!pending.isEmpty()) {
+                IllegalStateException e = new IllegalStateException("Unsubscribed from ring " + ringId);
+                notifier.execute(() -> pending.forEach(waiter -> waiter.future().completeExceptionally(e)));
+            }
+        }
+
+        boolean await(Predicate<RingState> condition, long nanos) throws InterruptedException {
+            lock.lock();
+            try {
+                while (!condition.test(this)) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = changed.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompletableFuture<Long> whenVersion(long target) {
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            lock.lock();
+            try {
+                if (closed) {
+                    future.completeExceptionally(new IllegalStateException("Unsubscribed from ring " + ringId));
+                } else if (version >= target) {
+                    future.complete(version);
+                } else {
+                    waiters.add(new VersionWaiter(target, future));
+                }
+            } finally {
+                lock.unlock();
+            }
+            return future;
+        }
+
+    }
+
+    private AsyncCallback.ChildrenCallback childrenCallback(String ringId, boolean reconcile) {
+        return childrenCallback(ringId, reconcile, Collections.emptySet(), System.nanoTime());
+    }
+
+    private AsyncCallback.ChildrenCallback childrenCallback(String ringId, boolean reconcile, Set<String> touched,
+            long observed) {
         return new AsyncCallback.ChildrenCallback() {
        
             @Override
             public void processResult(int rc, String path, Object ctx, List<String> children) {
                 String ringPath = getPath(ringId);
-                if ((children == null) || !ringPath.equals(path)) {
+                RingState state = rings.get(ringId);
+                KeeperException.Code code = KeeperException.Code.get(rc);
+                if (code != KeeperException.Code.OK) {
+                    metrics.zkError("getChildren", code);
+                    if (code != KeeperException.Code.NONODE) {
+                        retry(ringId);
+                    }
+                }
+                if ((children == null) || (state == null) || !ringPath.equals(path)) {
                     return;
                 }
-                List<Node> peers = new ArrayList<>(children.size());
+                Set<String> removed = new HashSet<>(state.members.keySet());
+                removed.removeAll(children);
+                List<String> added = new ArrayList<>();
                 for (String child : children) {
-                    String childPath = path + "/" + child;
-                    try {
-                        byte[] childData = zk.getData(childPath, false, null);
-                        Node childIdentity = Utils.deserialize(childData, Node.class);
-                        if (childIdentity != null) {
-                            peers.add(childIdentity);
-                        }
-                    } catch (KeeperException | InterruptedException e) {
-                        LOGGER.error("Unable to retrieve data for path {}: {}", childPath, e.getLocalizedMessage());
-                        throw new RuntimeException(e);
+                    if (reconcile || touched.contains(child) || !state.members.containsKey(child)) {
+                        added.add(child);
                     }
                 }
-                LOGGER.info("Updating ring {} with {} peers", ringId, children.size());
-                HashRing hashRing = new HashRing(partitions, replication, hash);
-                hashRing.addAll(peers);
-                rings.put(ringId, hashRing);
+                if (removed.isEmpty() && added.isEmpty()) {
+                    return;
+                }
+                MembershipFetch fetch = new MembershipFetch(state, removed, added.size(), observed);
+                for (String child : added) {
+                    getData(path + "/" + child, fetch, child);
+                }
+                if (added.isEmpty()) {
+                    fetch.complete();
+                }
             }
             
         };
     }
 
-    private Watcher childrenWatcher(String ringId) {
+    private class MembershipFetch implements AsyncCallback.DataCallback {
+
+        private final RingState state;
+
+        private final Set<String> removed;
+
+        private final Map<String, byte[]> fetched = new ConcurrentHashMap<>();
+
+        private final Map<String, Long> mzxids = new ConcurrentHashMap<>();
+
+        private final AtomicInteger pending;
+
+        private volatile boolean failed = false;
+
+        private final long observed;
+
+        MembershipFetch(RingState state, Set<String> removed, int added, long observed) {
+            this.state = state;
+            this.observed = observed;
+            this.removed = removed;
+            this.pending = new AtomicInteger(added);
+        }
+
+        @Override
+        public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK) {
+                String child = (String) ctx;
+                fetched.put(child, data);
+                mzxids.put(child, stat.getMzxid());
+            } else if (code != KeeperException.Code.NONODE) {
+                LOGGER.error("Unable to retrieve data for path {}: {}", path, code);
+                metrics.zkError("getData", code);
+                failed = true;
+            }
+            if (pending.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        void complete() {
+            if (failed) {
+                LOGGER.error("Keeping previous snapshot of ring {} after failed membership fetch", state.ringId);
+                retry(state.ringId);
+                return;
+            }
+            long rebuildStarted = System.nanoTime();
+            Placement previous = state.snapshot;
+            Placement next = previous.copy();
+            HashRing hashRing = next instanceof HashRing ring ? ring : null;
+            List<Node> gone = new ArrayList<>(removed.size());
+            for (String child : removed) {
+                Member member = state.members.get(child);
+                if (member != null) {
+                    gone.add(member.node());
+                }
+            }
+            Map<String, Member> joined = new HashMap<>();
+            Set<String> dropped = new HashSet<>();
+            List<Node> added = new ArrayList<>(fetched.size());
+            List<RingIndex> vnodes = new ArrayList<>(fetched.size());
+            for (Map.Entry<String, byte[]> entry : fetched.entrySet()) {
+                String child = entry.getKey();
+                long mzxid = mzxids.get(child);
+                Member cached = state.members.get(child);
+                if (cached != null && cached.mzxid() == mzxid) {
+                    continue;
+                }
+                if (cached != null) {
+                    gone.add(cached.node());
+                }
+                Node childIdentity = decode(child, entry.getValue());
+                if (childIdentity == null) {
+                    dropped.add(child);
+                    continue;
+                }
+                joined.put(child, new Member(childIdentity, mzxid));
+                added.add(childIdentity);
+                if (hashRing != null) {
+                    vnodes.add(hashRing.getVNodes(childIdentity));
+                }
+            }
+            if (added.isEmpty() && gone.isEmpty()) {
+                return;
+            }
+            if (hashRing != null) {
+                tune(hashRing, gone, vnodes);
+            } else {
+                next.update(gone, added);
+            }
+            state.members.keySet().removeAll(removed);
+            state.members.keySet().removeAll(dropped);
+            state.members.putAll(joined);
+            LOGGER.info("Updating ring {} with {} peers (+{}, -{})",
+                    state.ringId, state.members.size(), added.size(), gone.size());
+            state.publish(next);
+            long published = System.nanoTime();
+            metrics.rebuilt(state.ringId, published - rebuildStarted);
+            metrics.converged(state.ringId, published - observed);
+            if (metrics != RingMetrics.NOOP && hashRing != null) {
+                scheduler.execute(() -> metrics.ownership(state.ringId, hashRing.ownership()));
+            }
+            persist(state);
+            notifyListeners(state.ringId, previous, next);
+        }
+
+    }
+
+    private Watcher ringWatcher(String ringId) {
         return new Watcher() {
 
             @Override
             public void process(WatchedEvent watchedEvent) {
-                if (watchedEvent.getType() == Event.EventType.NodeChildrenChanged) {
-                    String path = watchedEvent.getPath();
-                    LOGGER.info("Peers changed for service {}", path.substring(1));
-                    zk.getChildren(path, this, childrenCallback(ringId), null);
+                long observed = System.nanoTime();
+                RingState state = rings.get(ringId);
+                String path = watchedEvent.getPath();
+                String ringPath = getPath(ringId) + "/";
+                if (state == null || path == null || !path.startsWith(ringPath)
+                        || path.indexOf('/', ringPath.length()) >= 0) {
+                    return;
+                }
+                String child = path.substring(ringPath.length());
+                Event.EventType type = watchedEvent.getType();
+                if (type == Event.EventType.NodeCreated) {
+                    LOGGER.info("Peer {} joined ring {}", child, ringId);
+                    if (debounce > 0) {
+                        refresh(ringId, child, observed);
+                    } else {
+                        getData(path, new MembershipFetch(state, Collections.emptySet(), 1, observed), child);
+                    }
+                } else if (type == Event.EventType.NodeDeleted) {
+                    LOGGER.info("Peer {} left ring {}", child, ringId);
+                    if (debounce > 0) {
+                        refresh(ringId, child, observed);
+                    } else {
+                        new MembershipFetch(state, Collections.singleton(child), 0, observed).complete();
+                    }
+                } else if (type == Event.EventType.NodeDataChanged) {
+                    LOGGER.info("Peer {} changed in ring {}", child, ringId);
+                    getData(path, new MembershipFetch(state, Collections.emptySet(), 1, observed), child);
                 }
             }
 
@@ -99,6 +426,20 @@ public class ZkRing {
 
         private int replication = 1;
 
+        private Placement.Factory placement = Placement.HASH_RING;
+
+        private int debounce = 0;
+
+        private Executor listenerExecutor;
+
+        private Path snapshotDirectory;
+
+        private RingMetrics metrics = RingMetrics.NOOP;
+
+        private double balanceTarget = 0.0;
+
+        private long maxVNodes = 0;
+
         public Builder withConnectString(String connectString) {
             this.connectString = connectString;
             return this;
@@ -129,6 +470,37 @@ public class ZkRing {
             return this;
         }
 
+        public Builder withPlacement(Placement.Factory placement) {
+            this.placement = placement;
+            return this;
+        }
+
+        public Builder withDebounce(int debounce) {
+            this.debounce = debounce;
+            return this;
+        }
+
+        public Builder withListenerExecutor(Executor listenerExecutor) {
+            this.listenerExecutor = listenerExecutor;
+            return this;
+        }
+
+        public Builder withSnapshotDirectory(Path snapshotDirectory) {
+            this.snapshotDirectory = snapshotDirectory;
+            return this;
+        }
+
+        public Builder withMetrics(RingMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder withBalanceTarget(double balanceTarget, long maxVNodes) {
+            this.balanceTarget = balanceTarget;
+            this.maxVNodes = maxVNodes;
+            return this;
+        }
+
         public ZkRing build() {
             return new ZkRing(this);
         }
@@ -146,57 +518,526 @@ public class ZkRing {
         this.partitions = builder.partitions;
         this.replication = builder.replication;
         this.hash = builder.hash;
+        this.placement = builder.placement;
+        this.debounce = builder.debounce;
+        this.snapshotDirectory = builder.snapshotDirectory;
+        this.metrics = builder.metrics;
+        this.balanceTarget = builder.balanceTarget;
+        this.maxVNodes = builder.maxVNodes;
+        this.listenerThread = builder.listenerExecutor != null ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "zkring-listeners");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.notifier = builder.listenerExecutor != null ? builder.listenerExecutor : this.listenerThread;
+    }
+
+    public void addListener(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        this.listeners.remove(listener);
+    }
+
+    public void addMigrationListener(MigrationPlan.Listener listener) {
+        this.migrationListeners.add(listener);
+    }
+
+    public void removeMigrationListener(MigrationPlan.Listener listener) {
+        this.migrationListeners.remove(listener);
     }
 
     public void subscribe(String ringId) {
+        await(subscribeAsync(ringId));
+    }
+
+    public CompletableFuture<Void> subscribeAsync(String ringId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ZooKeeper session;
         try {
-            this.zk = new ZooKeeper(connectString, sessionTimeout, null);
-            String servicePath = getPath(ringId);
-            if (zk.exists(servicePath, null) == null) {
-                zk.create(servicePath, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
-                LOGGER.info("Registered new ring: {}", ringId);
-            }
-            zk.getChildren(servicePath, childrenWatcher(ringId), childrenCallback(ringId), null);
-            String peerPath = getPath(ringId, identity);
-            byte[] serialized = Utils.serialize(identity);
-            zk.create(peerPath, serialized, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
-            LOGGER.info("Subscribed to {}", ringId);
-        } catch (IOException | InterruptedException | KeeperException e) {
+            session = session();
+        } catch (IOException e) {
             LOGGER.error("Unable to subscribe to {}", ringId, e);
-            throw new RuntimeException(e);
+            future.completeExceptionally(e);
+            return future;
         }
+        RingState state = new RingState(ringId);
+        RingState current = this.rings.putIfAbsent(ringId, state);
+        if (current != null) {
+            return register(session, current, false);
+        }
+        this.metrics.lookups(ringId, state.lookups);
+        return register(session, state, restore(state));
+    }
+
+    private CompletableFuture<Void> register(ZooKeeper session, RingState state, boolean reconcile) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        String ringId = state.ringId;
+        String servicePath = getPath(ringId);
+        String peerPath = getPath(ringId, identity);
+        byte[] serialized = NodeCodec.encode(identity);
+        this.metrics.zkCall("create");
+        session.create(servicePath, null, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT,
+                (rc, path, ctx, name) -> {
+                    KeeperException.Code code = KeeperException.Code.get(rc);
+                    if (code == KeeperException.Code.OK) {
+                        LOGGER.info("Registered new ring: {}", ringId);
+                    } else if (code != KeeperException.Code.NODEEXISTS) {
+                        metrics.zkError("create", code);
+                        fail(future, "Unable to subscribe to " + ringId, code, path);
+                        return;
+                    }
+                    metrics.zkCall("addWatch");
+                    session.addWatch(servicePath, state.watcher, AddWatchMode.PERSISTENT_RECURSIVE,
+                            (watchRc, watchPath, watchCtx) -> {
+                                KeeperException.Code watchCode = KeeperException.Code.get(watchRc);
+                                if (watchCode != KeeperException.Code.OK) {
+                                    LOGGER.error("Unable to watch ring {}: {}", ringId, watchCode);
+                                    metrics.zkError("addWatch", watchCode);
+                                }
+                            }, null);
+                    metrics.zkCall("getChildren");
+                    session.getChildren(servicePath, false, childrenCallback(ringId, reconcile), null);
+                    metrics.zkCall("create");
+                    session.create(peerPath, serialized, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL,
+                            (peerRc, peerCreated, peerCtx, peerName) -> {
+                                KeeperException.Code peerCode = KeeperException.Code.get(peerRc);
+                                if (peerCode != KeeperException.Code.OK) {
+                                    metrics.zkError("create", peerCode);
+                                    fail(future, "Unable to subscribe to " + ringId, peerCode, peerCreated);
+                                    return;
+                                }
+                                LOGGER.info("Subscribed to {}", ringId);
+                                future.complete(null);
+                            }, null);
+                }, null);
+        return future;
     }
 
     public void unsubscribe(String ringId) {
+        await(unsubscribeAsync(ringId));
+    }
+
+    public CompletableFuture<Void> unsubscribeAsync(String ringId) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
         String peerPath = getPath(ringId, identity);
         UUID uuid = identity.uuid();
-        try {
-            zk.delete(peerPath, -1);
+        RingState state = this.rings.remove(ringId);
+        if (state != null) {
+            state.close();
+        }
+        if (state == null || this.zk == null) {
+            future.complete(null);
+            return future;
+        }
+        this.metrics.zkCall("removeWatches");
+        this.zk.removeWatches(getPath(ringId), state.watcher, WatcherType.Any, true,
+                (rc, path, ctx) -> {}, null);
+        this.metrics.zkCall("delete");
+        this.zk.delete(peerPath, -1, (rc, path, ctx) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code != KeeperException.Code.OK && code != KeeperException.Code.NONODE) {
+                metrics.zkError("delete", code);
+                fail(future, "Unable to unsubscibe peer " + uuid + " from " + ringId, code, path);
+                return;
+            }
             LOGGER.info("Unsubscribed peer {} from ring {}", uuid, ringId);
-        } catch (InterruptedException | KeeperException e) {
-            LOGGER.error("Unable to unsubscibe peer {} from {}", uuid, ringId, e);
-            throw new RuntimeException(e);
+            future.complete(null);
+        }, null);
+        return future;
+    }
+
+    public void setWeight(int weight) {
+        Node updated = identity.withWeight(weight);
+        byte[] serialized = NodeCodec.encode(updated);
+        this.identity = updated;
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (String ringId : this.rings.keySet()) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            this.metrics.zkCall("setData");
+            zk.setData(getPath(ringId, updated), serialized, -1, (rc, path, ctx, stat) -> {
+                KeeperException.Code code = KeeperException.Code.get(rc);
+                if (code != KeeperException.Code.OK) {
+                    metrics.zkError("setData", code);
+                    fail(future, "Unable to update weight of peer " + updated.uuid() + " in " + ringId, code, path);
+                    return;
+                }
+                LOGGER.info("Updated weight of peer {} in ring {} to {}", updated.uuid(), ringId, weight);
+                future.complete(null);
+            }, null);
+            pending.add(future);
         }
+        await(CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])));
     }
 
     public void close() {
+        this.closed = true;
         try {
-            this.rings.keySet().forEach(this::unsubscribe);
-            this.rings.clear();
-            this.zk.close();
-            LOGGER.info("Closed connection to ZooKeeper");
-        } catch (InterruptedException e) {
-            LOGGER.error("Unable to close connection to ZooKeeper: {}", e.getLocalizedMessage());
-            throw new RuntimeException(e);
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (String ringId : this.rings.keySet()) {
+                pending.add(unsubscribeAsync(ringId));
+            }
+            await(CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to unsubscribe before closing, ephemeral peers go with the session: {}",
+                    e.getLocalizedMessage());
+        } finally {
+            try {
+                if (this.zk != null) {
+                    this.zk.close();
+                    this.zk = null;
+                }
+                this.connected = false;
+                LOGGER.info("Closed connection to ZooKeeper");
+            } catch (InterruptedException e) {
+                LOGGER.error("Unable to close connection to ZooKeeper: {}", e.getLocalizedMessage());
+                throw new RuntimeException(e);
+            } finally {
+                this.scheduler.shutdown();
+                if (this.listenerThread != null) {
+                    this.listenerThread.shutdown();
+                }
+            }
+        }
+    }
+
+    public CompletableFuture<Void> closeAsync() {
+        return CompletableFuture.runAsync(this::close, runnable -> {
+            Thread thread = new Thread(runnable, "zkring-close");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    public long version(String ringId) {
+        RingState state = this.rings.get(ringId);
+        return state == null ? 0 : state.version;
+    }
+
+    public boolean awaitVersion(String ringId, long version, Duration timeout) throws InterruptedException {
+        RingState state = this.rings.get(ringId);
+        return state != null && state.await(ring -> ring.version >= version, timeout.toNanos());
+    }
+
+    public boolean awaitNonEmpty(String ringId, Duration timeout) throws InterruptedException {
+        RingState state = this.rings.get(ringId);
+        return state != null && state.await(ring -> ring.snapshot.size() > 0, timeout.toNanos());
+    }
+
+    public CompletableFuture<Long> awaitVersionAsync(String ringId, long version) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Not subscribed to ring " + ringId));
         }
+        return state.whenVersion(version);
+    }
+
+    public boolean isConnected() {
+        return this.connected;
+    }
+
+    public <S> Node getNode(String ringId, S obj) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return null;
+        }
+        state.lookups.increment();
+        return state.snapshot.getNode(obj);
+    }
+
+    public <S> Node getNode(String ringId, S obj, LoadTracker loads) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return null;
+        }
+        state.lookups.increment();
+        return state.snapshot.getNode(obj, loads);
+    }
+
+    public <S> List<Node> getNodes(String ringId, S obj, int num) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return Collections.emptyList();
+        }
+        state.lookups.increment();
+        return state.snapshot.getNodes(obj, num);
+    }
+
+    public <S> List<Node> getNodes(String ringId, S obj, int num, boolean zoneAware) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return Collections.emptyList();
+        }
+        state.lookups.increment();
+        return state.snapshot.getNodes(obj, num, zoneAware);
+    }
+
+    public HotKeyRouter newHotKeyRouter(String ringId, int replicas, int capacity, double threshold, boolean spread) {
+        return new HotKeyRouter(() -> {
+            RingState state = this.rings.get(ringId);
+            return state == null ? null : state.snapshot;
+        }, replicas, capacity, threshold, spread);
+    }
+
+    public PartitionTable getPartitionTable(String ringId) {
+        RingState state = this.rings.get(ringId);
+        return state != null && state.snapshot instanceof HashRing ring ? ring.getPartitionTable() : null;
     }
 
     public int size(String ringId) {
         return Optional.ofNullable(this.rings.get(ringId))
-            .map(HashRing::size)
+            .map(state -> state.snapshot.size())
             .orElse(0);
     }
 
+    synchronized ZooKeeper session() throws IOException {
+        if (this.zk == null) {
+            this.zk = new ZooKeeper(connectString, sessionTimeout, sessionWatcher());
+        }
+        return this.zk;
+    }
+
+    private Watcher sessionWatcher() {
+        return watchedEvent -> {
+            if (watchedEvent.getType() != Watcher.Event.EventType.None) {
+                return;
+            }
+            Watcher.Event.KeeperState keeperState = watchedEvent.getState();
+            if (keeperState == Watcher.Event.KeeperState.SyncConnected) {
+                this.connected = true;
+                LOGGER.info("Connected to ZooKeeper");
+                if (this.disconnected) {
+                    this.disconnected = false;
+                    this.rings.keySet().forEach(this::reconcile);
+                }
+            } else if (keeperState == Watcher.Event.KeeperState.Disconnected) {
+                this.connected = false;
+                this.disconnected = true;
+                LOGGER.warn("Disconnected from ZooKeeper, serving last known rings");
+            } else if (keeperState == Watcher.Event.KeeperState.Expired) {
+                this.connected = false;
+                this.disconnected = false;
+                if (!this.closed) {
+                    LOGGER.warn("ZooKeeper session expired, reconnecting");
+                    this.scheduler.execute(this::recover);
+                }
+            } else if (keeperState == Watcher.Event.KeeperState.Closed) {
+                this.connected = false;
+                this.disconnected = false;
+            }
+        };
+    }
+
+    private void reconcile(String ringId) {
+        ZooKeeper session = this.zk;
+        if (session == null || !this.rings.containsKey(ringId)) {
+            return;
+        }
+        LOGGER.info("Reconciling ring {}", ringId);
+        this.metrics.zkCall("getChildren");
+        session.getChildren(getPath(ringId), false, childrenCallback(ringId, true), null);
+    }
+
+    private void retry(String ringId) {
+        RingState state = this.rings.get(ringId);
+        if (state == null || this.closed || !state.retryPending.compareAndSet(false, true)) {
+            return;
+        }
+        this.scheduler.schedule(() -> {
+            state.retryPending.set(false);
+            if (this.connected && !this.closed) {
+                reconcile(ringId);
+            }
+        }, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void recover() {
+        if (this.closed) {
+            return;
+        }
+        ZooKeeper session;
+        synchronized (this) {
+            ZooKeeper expired = this.zk;
+            if (expired == null || expired.getState().isAlive()) {
+                return;
+            }
+            try {
+                expired.close();
+                this.zk = null;
+                session = session();
+            } catch (IOException e) {
+                LOGGER.error("Unable to reconnect to ZooKeeper", e);
+                this.scheduler.schedule(this::recover, this.sessionTimeout, TimeUnit.MILLISECONDS);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        for (RingState state : this.rings.values()) {
+            register(session, state, true).whenComplete((result, e) -> {
+                if (e == null) {
+                    LOGGER.info("Re-registered peer {} in ring {}", identity.uuid(), state.ringId);
+                }
+            });
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void fail(CompletableFuture<Void> future, String message, KeeperException.Code code, String path) {
+        KeeperException e = KeeperException.create(code, path);
+        LOGGER.error(message, e);
+        future.completeExceptionally(e);
+    }
+
+    private void getData(String path, MembershipFetch fetch, String child) {
+        this.metrics.zkCall("getData");
+        this.zk.getData(path, false, fetch, child);
+    }
+
+    private boolean restore(RingState state) {
+        if (this.snapshotDirectory == null) {
+            return false;
+        }
+        Path file = getSnapshotPath(state.ringId);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        List<SnapshotFile.Entry> entries;
+        try {
+            entries = SnapshotFile.read(file);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Unable to read snapshot of ring {} from {}", state.ringId, file, e);
+            return false;
+        }
+        Placement restored = state.snapshot.copy();
+        List<Node> nodes = new ArrayList<>(entries.size());
+        List<RingIndex> vnodes = new ArrayList<>(entries.size());
+        for (SnapshotFile.Entry entry : entries) {
+            state.members.put(entry.child(), new Member(entry.node(), entry.mzxid()));
+            nodes.add(entry.node());
+            if (restored instanceof HashRing ring) {
+                vnodes.add(ring.getVNodes(entry.node()));
+            }
+        }
+        if (restored instanceof HashRing ring) {
+            tune(ring, Collections.emptyList(), vnodes);
+        } else {
+            restored.addAll(nodes);
+        }
+        state.publish(restored);
+        LOGGER.info("Restored ring {} with {} peers from {}", state.ringId, entries.size(), file);
+        return true;
+    }
+
+    private void tune(HashRing ring, Collection<Node> gone, Collection<RingIndex> vnodes) {
+        int previous = ring.replication();
+        int factor = ring.apply(gone, vnodes, this.balanceTarget, this.maxVNodes);
+        if (factor != previous) {
+            LOGGER.debug("Tuned ring to {} vnodes per unit of weight", factor);
+        }
+    }
+
+    private void persist(RingState state) {
+        if (this.snapshotDirectory == null) {
+            return;
+        }
+        List<SnapshotFile.Entry> entries = new ArrayList<>(state.members.size());
+        for (Map.Entry<String, Member> member : state.members.entrySet()) {
+            entries.add(new SnapshotFile.Entry(member.getKey(), member.getValue().mzxid(), member.getValue().node()));
+        }
+        Path file = getSnapshotPath(state.ringId);
+        this.scheduler.execute(() -> {
+            try {
+                SnapshotFile.write(file, entries);
+            } catch (IOException e) {
+                LOGGER.error("Unable to write snapshot of ring {} to {}", state.ringId, file, e);
+            }
+        });
+    }
+
+    private Path getSnapshotPath(String ringId) {
+        return this.snapshotDirectory.resolve(ringId + ".ring");
+    }
+
+    private void refresh(String ringId, String child, long observed) {
+        RingState state = this.rings.get(ringId);
+        if (state == null) {
+            return;
+        }
+        state.touched.add(child);
+        String path = getPath(ringId);
+        if (state.refreshPending.compareAndSet(false, true)) {
+            state.observed = observed;
+            this.scheduler.schedule(() -> {
+                long windowStart = state.observed;
+                state.refreshPending.set(false);
+                Set<String> touched = new HashSet<>(state.touched);
+                state.touched.removeAll(touched);
+                ZooKeeper session = this.zk;
+                if (session == null || this.closed) {
+                    return;
+                }
+                metrics.zkCall("getChildren");
+                session.getChildren(path, false, childrenCallback(ringId, false, touched, windowStart), null);
+            }, this.debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void notifyListeners(String ringId, Placement previous, Placement next) {
+        if (this.listeners.isEmpty() && this.migrationListeners.isEmpty()) {
+            return;
+        }
+        this.notifier.execute(() -> {
+            for (Listener listener : this.listeners) {
+                try {
+                    listener.onChange(ringId, previous, next);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Listener failed for ring {}", ringId, e);
+                }
+            }
+            notifyMigration(ringId, previous, next);
+        });
+    }
+
+    private void notifyMigration(String ringId, Placement previous, Placement next) {
+        if (this.migrationListeners.isEmpty()
+                || !(previous instanceof HashRing from) || !(next instanceof HashRing to)) {
+            return;
+        }
+        MigrationPlan plan = MigrationPlan.between(from, to);
+        if (plan.isEmpty()) {
+            return;
+        }
+        for (MigrationPlan.Listener listener : this.migrationListeners) {
+            try {
+                listener.onMigration(ringId, plan);
+            } catch (RuntimeException e) {
+                LOGGER.error("Migration listener failed for ring {}", ringId, e);
+            }
+        }
+    }
+
+    private static Node decode(String child, byte[] data) {
+        try {
+            return NodeCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Unable to decode data for peer {}: {}", child, e.getLocalizedMessage());
+            return null;
+        }
+    }
+
     private static String getPath(String ringId) {
         return "/" + ringId;
     }
@@ -3,8 +3,12 @@ package io.github.lucasimi.zkring;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -125,4 +129,301 @@ public class HashRingTest {
         assertEquals(node1, node3Get);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCollisions() {
+        Hash hashing = mock(Hash.class);
+
+        Node node0 = new Node(UUID.randomUUID(), "testaddr0", 0);
+        Node node1 = new Node(UUID.randomUUID(), "testaddr1", 1);
+        Node node2 = new Node(UUID.randomUUID(), "testaddr2", 2);
+
+        when(hashing.hash(eq(new VNode(node0, 0)))).thenReturn(2);
+        when(hashing.hash(eq(new VNode(node1, 0)))).thenReturn(6);
+        when(hashing.hash(eq(new VNode(node2, 0)))).thenReturn(4);
+
+        when(hashing.hash(0)).thenReturn(0);
+
+        HashRing hashRing = new HashRing(4, 1, hashing);
+        assertNull(hashRing.getNode(0));
+        assertEquals(List.of(), hashRing.getNodes(0, 2));
+
+        hashRing.add(node1);
+        hashRing.add(node0);
+        hashRing.add(node2);
+        assertEquals(3, hashRing.size());
+        assertEquals(node1, hashRing.getNode(0));
+        assertEquals(List.of(node1, node2), hashRing.getNodes(0, 3));
+
+        hashRing.remove(node1);
+        assertEquals(2, hashRing.size());
+        assertEquals(node0, hashRing.getNode(0));
+
+        hashRing.removeAll(List.of(node0, node2));
+        assertEquals(0, hashRing.size());
+        assertNull(hashRing.getNode(0));
+    }
+
+    @Test
+    public void testIncrementalMatchesRebuild() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+
+        HashRing incremental = new HashRing(64, 8, hashing);
+        incremental.addAll(nodes.subList(0, 12));
+        HashRing next = incremental.copy();
+        next.removeAll(nodes.subList(0, 4));
+        next.addAll(nodes.subList(12, 20));
+
+        HashRing rebuilt = new HashRing(64, 8, hashing);
+        rebuilt.addAll(nodes.subList(4, 20));
+
+        assertEquals(rebuilt.size(), next.size());
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(rebuilt.getNodes(key, 3), next.getNodes(key, 3));
+        }
+    }
+
+    @Test
+    public void testBatchRouting() {
+        Hash hashing = new Hash.Murmur3();
+        HashRing hashRing = new HashRing(1 << 16, 16, hashing);
+        for (int i = 0; i < 8; i++) {
+            hashRing.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            keys.add("key" + i);
+        }
+
+        Map<Node, List<String>> buckets = new HashMap<>();
+        hashRing.route(keys, buckets, new int[keys.size()], new Node[keys.size()], new long[keys.size()]);
+        assertEquals(keys.size(), buckets.values().stream().mapToInt(List::size).sum());
+        buckets.forEach((node, bucket) -> bucket.forEach(key -> assertEquals(node, hashRing.getNode(key))));
+
+        int[] hashes = new int[100];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hashing.hash(keys.get(i % 10));
+        }
+        Node[] owners = new Node[hashes.length];
+        hashRing.route(hashes, hashes.length, owners, new long[hashes.length]);
+        for (int i = 0; i < hashes.length; i++) {
+            assertEquals(hashRing.getNode(keys.get(i % 10)), owners[i]);
+        }
+    }
+
+    @Test
+    public void testParallelBuildMatchesSequential() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+
+        HashRing parallel = new HashRing(1 << 16, 16, hashing);
+        parallel.addAll(nodes);
+        HashRing sequential = new HashRing(1 << 16, 16, hashing);
+        nodes.forEach(sequential::add);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int key = 0; key < 10_000; key++) {
+            assertEquals(sequential.getNode(key), parallel.getNode(key));
+        }
+    }
+
+    @Test
+    public void testBoundedLoads() {
+        Hash hashing = mock(Hash.class);
+
+        Node node0 = new Node(UUID.randomUUID(), "testaddr0", 0);
+        Node node2 = new Node(UUID.randomUUID(), "testaddr2", 2);
+        Node node4 = new Node(UUID.randomUUID(), "testaddr4", 4);
+
+        when(hashing.hash(eq(new VNode(node0, 0)))).thenReturn(0);
+        when(hashing.hash(eq(new VNode(node2, 0)))).thenReturn(2);
+        when(hashing.hash(eq(new VNode(node4, 0)))).thenReturn(4);
+        when(hashing.hash(1)).thenReturn(1);
+
+        HashRing hashRing = new HashRing(6, 1, hashing);
+        hashRing.addAll(List.of(node0, node2, node4));
+        LoadTracker loads = new LoadTracker(0.25);
+
+        assertEquals(node2, hashRing.getNode(1, loads));
+        loads.add(node0, 2);
+        loads.add(node4, 2);
+        assertEquals(node2, hashRing.getNode(1, loads));
+        loads.add(node2, 4);
+        assertEquals(node4, hashRing.getNode(1, loads));
+        loads.add(node2, 4);
+        loads.add(node4, 6);
+        assertEquals(node0, hashRing.getNode(1, loads));
+        loads.reset(node2);
+        assertEquals(node2, hashRing.getNode(1, loads));
+    }
+
+    @Test
+    public void testWeightedNodes() {
+        Hash hashing = new Hash.Murmur3();
+        Node light = new Node(UUID.randomUUID(), "testaddr0", 0);
+        Node heavy = new Node(UUID.randomUUID(), "testaddr1", 1, 3);
+
+        HashRing hashRing = new HashRing(1 << 20, 4, hashing);
+        hashRing.addAll(List.of(light, heavy));
+        assertEquals(16, hashRing.size());
+
+        HashRing reweighted = hashRing.copy();
+        reweighted.remove(heavy);
+        reweighted.add(heavy.withWeight(1));
+        assertEquals(8, reweighted.size());
+        for (int key = 0; key < 1000; key++) {
+            if (light.equals(hashRing.getNode(key))) {
+                assertEquals(light, reweighted.getNode(key));
+            }
+        }
+    }
+
+    @Test
+    public void testDistinctReplicas() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = List.of(
+                new Node(UUID.randomUUID(), "testaddr0", 0).withZone("a"),
+                new Node(UUID.randomUUID(), "testaddr1", 1).withZone("a"),
+                new Node(UUID.randomUUID(), "testaddr2", 2).withZone("b"),
+                new Node(UUID.randomUUID(), "testaddr3", 3).withZone("b"),
+                new Node(UUID.randomUUID(), "testaddr4", 4).withZone("c"));
+
+        HashRing hashRing = new HashRing(1 << 16, 32, hashing);
+        hashRing.addAll(nodes);
+        for (int key = 0; key < 1000; key++) {
+            List<Node> replicas = hashRing.getNodes(key, 3);
+            assertEquals(3, new HashSet<>(replicas).size());
+            assertEquals(hashRing.getNode(key), replicas.get(0));
+
+            List<Node> spread = hashRing.getNodes(key, 4, true);
+            assertEquals(4, new HashSet<>(spread).size());
+            assertEquals(Set.of("a", "b", "c"),
+                    spread.subList(0, 3).stream().map(Node::zone).collect(Collectors.toSet()));
+        }
+        assertEquals(5, hashRing.getNodes(0, 10).size());
+    }
+
+    @Test
+    public void testPartitionTable() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+        HashRing ring = new HashRing(1024, 8, hashing);
+        ring.addAll(nodes);
+        HashRing tabled = ring.copy();
+        tabled.enablePartitionTable(3);
+        tabled.remove(nodes.get(5));
+        ring.remove(nodes.get(5));
+
+        PartitionTable table = tabled.getPartitionTable();
+        assertEquals(1024, table.partitions());
+        assertEquals(3, table.owners());
+        for (int key = 0; key < 5000; key++) {
+            assertEquals(ring.getNode(key), tabled.getNode(key));
+            assertEquals(ring.getNodes(key, 3), tabled.getNodes(key, 3));
+            assertEquals(ring.getNodes(key, 3), table.owners(tabled.partition(key)));
+        }
+        int[] owned = new int[1];
+        nodes.forEach(node -> table.forEachOwned(node, p -> owned[0]++));
+        assertEquals(1024, owned[0]);
+        assertNull(ring.getPartitionTable());
+
+        HashRing huge = new HashRing(1 << 28, 8, hashing);
+        assertThrows(IllegalArgumentException.class, () -> huge.enablePartitionTable(2));
+        assertNull(huge.getPartitionTable());
+    }
+
+    @Test
+    public void testMigrationPlan() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+        HashRing before = new HashRing(1024, 8, new Hash.Murmur3());
+        before.addAll(nodes.subList(0, 5));
+        HashRing after = before.copy();
+        after.remove(nodes.get(0));
+        after.add(nodes.get(5));
+        PartitionTable from = PartitionTable.of(before.index(), 1024, 1);
+        PartitionTable to = PartitionTable.of(after.index(), 1024, 1);
+
+        MigrationPlan plan = MigrationPlan.between(before, after);
+        Node[] moved = new Node[1024];
+        for (MigrationPlan.Transfer transfer : plan.transfers()) {
+            for (int p = transfer.start(); p < transfer.end(); p++) {
+                assertEquals(from.owner(p), transfer.from());
+                assertEquals(to.owner(p), transfer.to());
+                moved[p] = transfer.to();
+            }
+        }
+        int expected = 0;
+        for (int p = 0; p < 1024; p++) {
+            if (!from.owner(p).equals(to.owner(p))) {
+                assertEquals(to.owner(p), moved[p]);
+                expected++;
+            }
+        }
+        assertEquals(expected, plan.movedPartitions());
+        assertEquals(1.0, after.ownership().values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+        assertEquals(5, after.ownership().size());
+        assertTrue(plan.transfersTo(nodes.get(0)).isEmpty());
+        assertTrue(plan.transfersFrom(nodes.get(5)).isEmpty());
+        assertTrue(MigrationPlan.between(after, after.copy()).isEmpty());
+    }
+
+    @Test
+    public void testBalanceTuning() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i, i < 5 ? 1 : 2));
+        }
+        HashRing ring = new HashRing(1 << 20, 2, new Hash.Murmur3());
+        ring.addAll(nodes);
+        HashRing.Balance before = ring.balance();
+        assertEquals(1.0, before.shares().values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+        assertTrue(before.peak() >= 1.0);
+
+        int factor = ring.tune(0.1, 15 * 256);
+        assertTrue(factor > 2 && factor <= 256);
+        assertEquals(factor, ring.replication());
+        assertEquals(15 * factor, ring.size());
+        assertTrue(ring.balance().stddev() <= 0.1 || factor * 2 > 256);
+        assertTrue(ring.balance().stddev() < before.stddev());
+
+        HashRing reversed = new HashRing(1 << 20, 2, new Hash.Murmur3());
+        List<Node> shuffled = new ArrayList<>(nodes);
+        Collections.reverse(shuffled);
+        reversed.addAll(shuffled);
+        assertEquals(factor, reversed.tune(0.1, 15 * 256));
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(ring.getNode(key), reversed.getNode(key));
+        }
+
+        HashRing incremental = new HashRing(1 << 20, 2, new Hash.Murmur3());
+        for (Node node : nodes) {
+            incremental.apply(List.of(), List.of(incremental.getVNodes(node)), 0.1, 15 * 256);
+        }
+        HashRing batch = new HashRing(1 << 20, 2, new Hash.Murmur3());
+        batch.apply(List.of(), shuffled.stream().map(batch::getVNodes).toList(), 0.1, 15 * 256);
+        assertEquals(factor, incremental.replication());
+        assertEquals(factor, batch.replication());
+        incremental.apply(List.of(nodes.get(0)), List.of(), 0.1, 15 * 256);
+        batch.remove(nodes.get(0));
+        batch.tune(0.1, 15 * 256);
+        assertEquals(batch.replication(), incremental.replication());
+        for (int key = 0; key < 10_000; key++) {
+            assertEquals(batch.getNode(key), incremental.getNode(key));
+        }
+
+        assertEquals(2, ring.tune(100.0, 15 * 256));
+    }
+
+}
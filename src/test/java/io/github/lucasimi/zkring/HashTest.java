@@ -0,0 +1,56 @@
+package io.github.lucasimi.zkring;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HashTest {
+
+    @Test
+    public void testXxHash64Vectors() {
+        Hash.XxHash64 xxHash = new Hash.XxHash64();
+        assertEquals(0xEF46DB3751D8E999L, xxHash.digest(""));
+        assertEquals(0x44BC2CF5AD770999L, xxHash.digest("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, xxHash.digest("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testKeyTypesAgreeWithBytes() {
+        UUID uuid = UUID.randomUUID();
+        byte[] uuidBytes = ByteBuffer.allocate(16)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+        byte[] text = "a key that spans more than thirty-two bytes".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(text.length).put(text).flip();
+
+        for (Hash.Direct hashing : List.of(new Hash.Murmur3(), new Hash.Murmur3x64(), new Hash.XxHash64())) {
+            assertEquals(hashing.digest(uuidBytes), hashing.digest(uuid));
+            assertEquals(hashing.digest(text), hashing.digest(direct));
+            assertEquals(hashing.digest(text), hashing.digest(new String(text, StandardCharsets.UTF_8)));
+            assertEquals(hashing.digest(text), hashing.digest(new StringBuilder(new String(text, StandardCharsets.UTF_8))));
+        }
+        assertEquals(MurmurHash3.hash32x86(text, 0, text.length, 0), new Hash.Murmur3().hash(direct));
+        assertEquals(MurmurHash3.hash128x64(uuidBytes, 0, 16, 0)[0], new Hash.Murmur3x64().digest(uuid));
+    }
+
+    @Test
+    public void testDirectBufferTails() {
+        byte[] text = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(text.length + 3).put(new byte[3]).put(text);
+        for (int length = 0; length <= text.length; length++) {
+            ByteBuffer window = direct.duplicate().position(3).limit(3 + length);
+            assertEquals(MurmurHash3.hash128x64(text, 0, length, 7)[0], HashFunctions.murmur3x64(window, 7));
+            assertEquals(MurmurHash3.hash32x86(text, 0, length, 7), HashFunctions.murmur3x86(window, 7));
+        }
+    }
+
+}
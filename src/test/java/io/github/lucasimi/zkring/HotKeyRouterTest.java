@@ -0,0 +1,70 @@
+package io.github.lucasimi.zkring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotKeyRouterTest {
+
+    @Test
+    public void testHotKeys() {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+        HashRing ring = new HashRing(1 << 20, 16, new Hash.Murmur3());
+        ring.addAll(nodes.subList(0, 5));
+        AtomicReference<Placement> snapshot = new AtomicReference<>(ring);
+        HotKeyRouter router = new HotKeyRouter(snapshot::get, 3, 16, 0.01, false);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String key = i % 4 == 0 ? "hot" : "cold" + random.nextInt(100_000);
+            assertEquals(ring.getNode(key), router.getNode(key));
+        }
+        assertTrue(router.isHot("hot"));
+        assertFalse(router.isHot("cold1"));
+        assertEquals(1, router.cached());
+        assertEquals(ring.getNodes("hot", 3), router.getNodes("hot"));
+
+        HashRing next = ring.copy();
+        next.add(nodes.get(5));
+        next.remove(ring.getNode("hot"));
+        snapshot.set(next);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(next.getNode("hot"), router.getNode("hot"));
+            assertEquals(next.getNodes("hot", 3), router.getNodes("hot"));
+        }
+        assertEquals(1, router.cached());
+
+        HotKeyRouter full = new HotKeyRouter(snapshot::get, 3, 1, 0.01, false);
+        for (int i = 0; i < 20_000; i++) {
+            String key = i % 2 == 0 ? "hot" : i % 8 == 1 ? "warm" : "cold" + random.nextInt(100_000);
+            assertEquals(next.getNode(key), full.getNode(key));
+        }
+        assertTrue(full.isHot("warm"));
+        assertEquals(1, full.cached());
+        assertEquals(next.getNodes("hot", 3), full.getNodes("hot"));
+
+        HotKeyRouter spreading = new HotKeyRouter(snapshot::get, 3, 16, 0.01, true);
+        Set<Node> targets = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            targets.add(spreading.getNode("hot"));
+        }
+        assertEquals(new HashSet<>(next.getNodes("hot", 3)), targets);
+
+        HotKeyRouter binary = new HotKeyRouter(snapshot::get, 3, 16, 0.01, false);
+        for (int i = 0; i < 20_000; i++) {
+            byte[] key = (i % 4 == 0 ? "hot" : "cold" + random.nextInt(100_000)).getBytes();
+            assertEquals(next.getNode(key), binary.getNode(key));
+        }
+        assertTrue(binary.isHot("hot".getBytes()));
+        assertEquals(1, binary.cached());
+    }
+
+}
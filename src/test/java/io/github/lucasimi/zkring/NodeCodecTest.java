@@ -0,0 +1,50 @@
+package io.github.lucasimi.zkring;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NodeCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Node node = new Node(UUID.randomUUID(), "testaddr0.example.com", 8080);
+        byte[] encoded = NodeCodec.encode(node);
+        assertEquals(node, NodeCodec.decode(encoded));
+        assertTrue(encoded.length < Utils.serialize(node).length / 4);
+
+        Node weighted = node.withWeight(8);
+        assertEquals(weighted, NodeCodec.decode(NodeCodec.encode(weighted)));
+        Node zoned = weighted.withZone("eu-west-1a");
+        assertEquals(zoned, NodeCodec.decode(NodeCodec.encode(zoned)));
+    }
+
+    @Test
+    public void testLegacyPayload() {
+        Node node = new Node(UUID.randomUUID(), "testaddr1", 1);
+        assertEquals(node, NodeCodec.decode(Utils.serialize(node)));
+        assertNull(NodeCodec.decode(new byte[0]));
+    }
+
+    @Test
+    public void testMalformedPayload() {
+        byte[] encoded = NodeCodec.encode(new Node(UUID.randomUUID(), "testaddr2", 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> NodeCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> NodeCodec.decode(new byte[] {1, 2, 3}));
+
+        byte[] weighted = NodeCodec.encode(new Node(UUID.randomUUID(), "testaddr3", 3, 8));
+        ByteBuffer.wrap(weighted).putInt(weighted.length - 4, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> NodeCodec.decode(weighted));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Node(UUID.randomUUID(), "testaddr3", 3, Node.MAX_WEIGHT + 1));
+    }
+
+}
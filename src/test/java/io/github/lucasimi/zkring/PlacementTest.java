@@ -0,0 +1,105 @@
+package io.github.lucasimi.zkring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlacementTest {
+
+    private static List<Node> nodes(int count) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new Node(UUID.randomUUID(), "testaddr" + i, i));
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testEngines() {
+        Hash hashing = new Hash.Murmur3();
+        List<Placement.Factory> factories = List.of(
+                Placement.HASH_RING, Placement.JUMP, Placement.RENDEZVOUS, Placement.maglev(1009));
+        List<Node> nodes = nodes(10);
+        for (Placement.Factory factory : factories) {
+            Placement placement = factory.create(1 << 16, 16, hashing);
+            assertNull(placement.getNode("key"));
+            placement.addAll(nodes);
+            Placement copy = placement.copy();
+            copy.remove(nodes.get(0));
+            for (int i = 0; i < 1000; i++) {
+                String key = "key" + i;
+                List<Node> peers = placement.getNodes(key, 3);
+                assertEquals(placement.getNode(key), peers.get(0));
+                assertEquals(3, new HashSet<>(peers).size());
+                assertTrue(nodes.contains(copy.getNode(key)));
+            }
+        }
+    }
+
+    @Test
+    public void testMinimalDisruption() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = nodes(10);
+        Node joined = new Node(new UUID(0, 0), "testaddr", 1);
+        for (Placement.Factory factory : List.of(Placement.RENDEZVOUS, Placement.maglev(1009))) {
+            Placement placement = factory.create(1 << 16, 16, hashing);
+            placement.addAll(nodes);
+            Placement next = placement.copy();
+            next.removeAll(List.of(nodes.get(3)));
+            Placement grown = placement.copy();
+            grown.addAll(List.of(joined));
+            int moved = 0;
+            int stolen = 0;
+            for (int i = 0; i < 10_000; i++) {
+                Node before = placement.getNode(i);
+                Node after = next.getNode(i);
+                if (!before.equals(nodes.get(3)) && !before.equals(after)) {
+                    moved++;
+                }
+                Node owner = grown.getNode(i);
+                if (!owner.equals(joined) && !owner.equals(before)) {
+                    stolen++;
+                }
+            }
+            assertTrue(moved < 500, "moved " + moved + " keys");
+            assertTrue(stolen < 500, "moved " + stolen + " keys on join");
+        }
+    }
+
+    @Test
+    public void testMembershipOrder() {
+        Hash hashing = new Hash.Murmur3();
+        List<Node> nodes = nodes(8);
+        List<Node> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        List<Placement.Factory> factories = List.of(
+                Placement.HASH_RING, Placement.JUMP, Placement.RENDEZVOUS, Placement.maglev(1009));
+        for (Placement.Factory factory : factories) {
+            Placement incremental = factory.create(1 << 16, 16, hashing);
+            for (Node node : nodes) {
+                incremental.add(node);
+            }
+            incremental.remove(nodes.get(2));
+            Placement batch = factory.create(1 << 16, 16, hashing);
+            batch.addAll(reversed.stream().filter(node -> !node.equals(nodes.get(2))).toList());
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(incremental.getNode(i), batch.getNode(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMaglevTableSize() {
+        assertThrows(IllegalArgumentException.class, () -> new MaglevPlacement(1000, new Hash.Murmur3()));
+    }
+
+}
@@ -2,10 +2,22 @@ package io.github.lucasimi.zkring;
 
 import java.io.File;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import com.codahale.metrics.MetricRegistry;
+import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.server.NIOServerCnxnFactory;
 import org.apache.zookeeper.server.ServerCnxnFactory;
 import org.apache.zookeeper.server.ZooKeeperServer;
@@ -13,9 +25,18 @@ import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class ZkRingTest {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZkRingTest.class);
@@ -119,9 +140,13 @@ public class ZkRingTest {
                 .atMost(Duration.ofSeconds(5))
                 .until(() -> zkDisc3.size(ringId2) == 1);
 
-        //List<Node> peers1 = testSharding1.peers;
-        //List<Node> peers2 = testSharding2.peers;
-        //assertEquals(new HashSet<>(peers1), new HashSet<>(peers2));
+        for (int i = 0; i < 10; i++) {
+            String key = "key" + i;
+            assertNotNull(zkDisc1.getNode(ringId1, key));
+            assertEquals(zkDisc1.getNode(ringId1, key), zkDisc2.getNode(ringId1, key));
+            assertEquals(zkDisc1.getNodes(ringId1, key, 2), zkDisc2.getNodes(ringId1, key, 2));
+        }
+        assertNull(zkDisc3.getNode(ringId1, "key"));
 
         zkDisc2.close();
         Awaitility.await()
@@ -132,5 +157,290 @@ public class ZkRingTest {
         zkDisc3.close();
     }
 
+    @Test
+    public void testWeight() {
+        String ringId = "ring3";
+        ZkRing zkDisc1 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 20)
+                .withReplication(4)
+                .build();
+        ZkRing zkDisc2 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node2", 2))
+                .withPartitions(1 << 20)
+                .withReplication(4)
+                .build();
+        zkDisc1.subscribe(ringId);
+        zkDisc2.subscribe(ringId);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> zkDisc1.size(ringId) == 8);
+
+        zkDisc2.setWeight(3);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> zkDisc1.size(ringId) == 16 && zkDisc2.size(ringId) == 16);
+
+        zkDisc1.close();
+        zkDisc2.close();
+    }
+
+    @Test
+    public void testDebouncedListener() {
+        String ringId = "ring4";
+        List<Placement[]> changes = new CopyOnWriteArrayList<>();
+        ZkRing observer = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node0", 0))
+                .withPartitions(1 << 16)
+                .withDebounce(1_000)
+                .build();
+        observer.addListener((id, previous, next) -> changes.add(new Placement[] {previous, next}));
+        observer.subscribe(ringId);
+        List<ZkRing> peers = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ZkRing peer = ZkRing.newBuilder()
+                    .withIdentity(new Node(UUID.randomUUID(), "node" + i, i))
+                    .withPartitions(1 << 16)
+                    .build();
+            peer.subscribe(ringId);
+            peers.add(peer);
+        }
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> !changes.isEmpty() && changes.get(changes.size() - 1)[1].size() == 6);
+
+        assertTrue(changes.size() <= 3);
+        for (int i = 1; i < changes.size(); i++) {
+            assertSame(changes.get(i - 1)[1], changes.get(i)[0]);
+        }
+        assertEquals(6, observer.size(ringId));
+
+        peers.forEach(ZkRing::close);
+        observer.close();
+    }
+
+    @Test
+    public void testSharedSession() {
+        int connections = zkServer.getNumAliveConnections();
+        ZkRing zkDisc = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 16)
+                .build();
+        CompletableFuture.allOf(
+                zkDisc.subscribeAsync("ring5"),
+                zkDisc.subscribeAsync("ring6"),
+                zkDisc.subscribeAsync("ring7")).join();
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> zkDisc.size("ring5") == 1 && zkDisc.size("ring6") == 1 && zkDisc.size("ring7") == 1);
+        assertTrue(zkServer.getNumAliveConnections() <= connections + 1);
+
+        zkDisc.unsubscribeAsync("ring6").join();
+        assertEquals(0, zkDisc.size("ring6"));
+        assertEquals(1, zkDisc.size("ring5"));
+
+        zkDisc.close();
+    }
+
+    @Test
+    public void testSessionExpiry() throws Exception {
+        String ringId = "ring8";
+        Node id1 = new Node(UUID.randomUUID(), "node1", 1);
+        ZkRing zkDisc1 = ZkRing.newBuilder()
+                .withIdentity(id1)
+                .withPartitions(1 << 16)
+                .build();
+        ZkRing zkDisc2 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node2", 2))
+                .withPartitions(1 << 16)
+                .build();
+        zkDisc1.subscribe(ringId);
+        zkDisc2.subscribe(ringId);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> zkDisc1.size(ringId) == 2 && zkDisc2.size(ringId) == 2);
+
+        ZooKeeper expired = zkDisc1.session();
+        ZooKeeper intruder = new ZooKeeper("localhost:2181", 10_000, event -> {},
+                expired.getSessionId(), expired.getSessionPasswd());
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> intruder.getState().isConnected());
+        intruder.close();
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(10))
+                .until(() -> zkDisc1.session() != expired && zkDisc1.isConnected());
+        assertEquals(2, zkDisc1.size(ringId));
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> zkDisc2.size(ringId) == 2
+                        && zkDisc1.session().exists("/" + ringId + "/" + id1.uuid(), false) != null);
+
+        zkDisc1.close();
+        zkDisc2.close();
+    }
+
+    @Test
+    public void testSnapshotFile(@TempDir Path directory) throws Exception {
+        String ringId = "ring9";
+        ZkRing zkDisc1 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 16)
+                .withSnapshotDirectory(directory)
+                .build();
+        ZkRing zkDisc2 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node2", 2).withWeight(2))
+                .withPartitions(1 << 16)
+                .build();
+        zkDisc1.subscribe(ringId);
+        zkDisc2.subscribe(ringId);
+        Path file = directory.resolve(ringId + ".ring");
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> Files.exists(file) && SnapshotFile.read(file).size() == 2);
+        byte[] newer = Files.readAllBytes(file);
+        newer[4] = SnapshotFile.VERSION + 1;
+        Path unsupported = Files.write(directory.resolve("newer.ring"), newer);
+        assertThrows(IllegalArgumentException.class, () -> SnapshotFile.read(unsupported));
+
+        ZkRing offline = ZkRing.newBuilder()
+                .withConnectString("localhost:2182")
+                .withIdentity(new Node(UUID.randomUUID(), "node3", 3))
+                .withPartitions(1 << 16)
+                .withSnapshotDirectory(directory)
+                .build();
+        try {
+            offline.subscribeAsync(ringId);
+            assertEquals(3, offline.size(ringId));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(zkDisc1.getNode(ringId, "key" + i), offline.getNode(ringId, "key" + i));
+            }
+        } finally {
+            offline.close();
+            assertFalse(offline.isConnected());
+        }
+
+        zkDisc1.close();
+        zkDisc2.close();
+    }
+
+    @Test
+    public void testMetrics() {
+        String ringId = "ring10";
+        MetricRegistry registry = new MetricRegistry();
+        ZkRing zkDisc1 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 16)
+                .withReplication(16)
+                .withMetrics(new DropwizardRingMetrics(registry))
+                .build();
+        ZkRing zkDisc2 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node2", 2))
+                .withPartitions(1 << 16)
+                .withReplication(16)
+                .build();
+        zkDisc1.subscribe(ringId);
+        zkDisc2.subscribe(ringId);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .until(() -> registry.getGauges().keySet().stream().filter(name -> name.contains("ownership")).count() == 3);
+        for (int i = 0; i < 10; i++) {
+            zkDisc1.getNode(ringId, "key" + i);
+        }
+
+        assertEquals(10L, registry.getGauges().get("zkring.ring10.lookups").getValue());
+        assertTrue(registry.timer("zkring.ring10.rebuild").getCount() > 0);
+        assertTrue(registry.timer("zkring.ring10.lag").getCount() > 0);
+        assertTrue(registry.counter("zkring.zookeeper.getData.calls").getCount() >= 2);
+        double variance = (double) registry.getGauges().get("zkring.ring10.ownership.variance").getValue();
+        assertTrue(variance >= 0.0 && variance < 0.25);
+
+        zkDisc1.close();
+        zkDisc2.close();
+    }
+
+    @Test
+    public void testAwaitAndRouting() throws Exception {
+        String ringId = "ring11";
+        ZkRing zkDisc1 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 16)
+                .build();
+        ZkRing zkDisc2 = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node2", 2))
+                .withPartitions(1 << 16)
+                .build();
+        zkDisc1.subscribe(ringId);
+        assertTrue(zkDisc1.awaitNonEmpty(ringId, Duration.ofSeconds(2)));
+        long version = zkDisc1.version(ringId);
+        CompletableFuture<Long> next = zkDisc1.awaitVersionAsync(ringId, version + 1);
+        CompletableFuture<Long> never = zkDisc1.awaitVersionAsync(ringId, version + 100);
+        zkDisc2.subscribe(ringId);
+        assertTrue(zkDisc1.awaitVersion(ringId, version + 1, Duration.ofSeconds(2)));
+        assertTrue(next.get() > version);
+        assertFalse(never.isDone());
+        assertFalse(zkDisc1.awaitVersion(ringId, version + 100, Duration.ofMillis(50)));
+
+        RoutingClient client = new RoutingClient(zkDisc1, ringId);
+        List<Node> replicas = zkDisc1.getNodes(ringId, "key", 2);
+        CompletableFuture<Node> stuck = new CompletableFuture<>();
+        Node winner = client.<String, Node>hedge("key", 2, Duration.ofMillis(20),
+                node -> node.equals(replicas.get(0)) ? stuck : CompletableFuture.completedFuture(node)).get();
+        assertEquals(replicas.get(1), winner);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(1))
+                .until(stuck::isCancelled);
+        assertEquals(replicas.get(0), client.call("key", CompletableFuture::completedFuture).get());
+        CompletableFuture<Node> failing = client.hedge("key", 2, Duration.ZERO,
+                node -> CompletableFuture.failedFuture(new IllegalStateException(node.address())));
+        assertTrue(assertThrows(ExecutionException.class, failing::get).getCause() instanceof IllegalStateException);
+        CompletableFuture<Node> failover = client.hedge("key", 2, Duration.ofSeconds(30),
+                node -> node.equals(replicas.get(0))
+                        ? CompletableFuture.failedFuture(new IllegalStateException(node.address()))
+                        : CompletableFuture.completedFuture(node));
+        assertEquals(replicas.get(1), failover.get(1, TimeUnit.SECONDS));
+
+        zkDisc1.closeAsync().get();
+        assertTrue(assertThrows(ExecutionException.class, never::get).getCause() instanceof IllegalStateException);
+        assertFalse(zkDisc1.isConnected());
+        zkDisc2.close();
+    }
+
+    @Test
+    public void testRestartedPeer() throws Exception {
+        String ringId = "ring12";
+        Node id2 = new Node(UUID.randomUUID(), "node2", 2);
+        ZkRing observer = ZkRing.newBuilder()
+                .withIdentity(new Node(UUID.randomUUID(), "node1", 1))
+                .withPartitions(1 << 16)
+                .withDebounce(1_000)
+                .build();
+        ZkRing peer = ZkRing.newBuilder()
+                .withIdentity(id2)
+                .withPartitions(1 << 16)
+                .build();
+        observer.subscribe(ringId);
+        peer.subscribe(ringId);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(3))
+                .until(() -> observer.size(ringId) == 2);
+
+        peer.close();
+        ZkRing restarted = ZkRing.newBuilder()
+                .withIdentity(new Node(id2.uuid(), "node2-restarted", 2, 3))
+                .withPartitions(1 << 16)
+                .build();
+        restarted.subscribe(ringId);
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(3))
+                .until(() -> observer.size(ringId) == 4);
+        assertEquals(Set.of("node1", "node2-restarted"), observer.getNodes(ringId, "key", 2).stream()
+                .map(Node::address)
+                .collect(Collectors.toSet()));
+
+        restarted.close();
+        observer.close();
+    }
+
 }
- 
\ No newline at end of file